@@ -0,0 +1,89 @@
+package com.kronae.roost.bench;
+
+import com.kronae.roost.EventListener;
+import com.kronae.roost.OffscreenWindow;
+import com.kronae.roost.Window;
+import com.kronae.roost.event.EventDispatcher;
+import com.kronae.roost.event.EventHandler;
+import com.kronae.roost.event.RoostEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of an event to N listeners which have M handlers of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EventDispatchBenchmark {
+    @Param({"1", "10", "100"})
+    public int listeners;
+    @Param({"1", "4"})
+    public int handlers;
+
+    private EventDispatcher dispatcher;
+    private BenchEvent event;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws IllegalAccessException {
+        dispatcher = new EventDispatcher();
+        for (int i = 0; i < listeners; i++) {
+            dispatcher.register(handlers == 1 ? new OneHandler(blackhole) : new FourHandlers(blackhole));
+        }
+        event = new BenchEvent(new OffscreenWindow(1, 1));
+    }
+
+    @Benchmark
+    public void dispatch() throws Throwable {
+        dispatcher.dispatch(event);
+    }
+
+    public static class BenchEvent extends RoostEvent {
+        public BenchEvent(Window window) {
+            super(window);
+        }
+    }
+
+    public static class OneHandler implements EventListener {
+        private final Blackhole blackhole;
+
+        public OneHandler(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @EventHandler
+        public void on(BenchEvent event) {
+            blackhole.consume(event);
+        }
+    }
+
+    public static class FourHandlers implements EventListener {
+        private final Blackhole blackhole;
+
+        public FourHandlers(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @EventHandler
+        public void on1(BenchEvent event) {
+            blackhole.consume(event);
+        }
+        @EventHandler
+        public void on2(BenchEvent event) {
+            blackhole.consume(event);
+        }
+        @EventHandler
+        public void on3(BenchEvent event) {
+            blackhole.consume(event);
+        }
+        @EventHandler
+        public void on4(BenchEvent event) {
+            blackhole.consume(event);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.kronae.roost.bench;
+
+import com.kronae.roost.render.Scene;
+import com.kronae.roost.render.TileCompositor;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-frame draw of K mixed structures into an offscreen BufferedImage.
+ * The clipped variant draws a quarter of the frame, like a dirty-region repaint does,
+ * and the tiled variant draws 256x256 tiles on the common fork-join pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FrameDrawBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int structures;
+
+    private Scene scene;
+    private BufferedImage frame;
+    private TileCompositor compositor;
+
+    @Setup
+    public void setup() throws IOException {
+        scene = Scenes.mixed(structures);
+        frame = Scenes.frame();
+        compositor = new TileCompositor(256);
+        // The first draw lays out the texts and scales the images.
+        fullFrame();
+    }
+
+    @Benchmark
+    public BufferedImage fullFrame() {
+        Graphics2D g = Scenes.begin(frame);
+        try {
+            scene.draw(g);
+        } finally {
+            g.dispose();
+        }
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage clippedFrame() {
+        Graphics2D g = Scenes.begin(frame);
+        try {
+            g.setClip(0, 0, Scenes.WIDTH / 2, Scenes.HEIGHT / 2);
+            scene.draw(g);
+        } finally {
+            g.dispose();
+        }
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage tiledFrame() {
+        compositor.draw(scene, frame, Color.WHITE);
+        return frame;
+    }
+}
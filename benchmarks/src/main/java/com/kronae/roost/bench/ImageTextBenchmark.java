@@ -0,0 +1,77 @@
+package com.kronae.roost.bench;
+
+import com.kronae.roost.image.ScaleQuality;
+import com.kronae.roost.structure.AtlasTextStructure;
+import com.kronae.roost.structure.ImageStructure;
+import com.kronae.roost.structure.TextStructure;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draw paths of images and texts, one structure per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ImageTextBenchmark {
+    private BufferedImage frame;
+    private Graphics2D g;
+    private ImageStructure image;
+    private ImageStructure scaledImage;
+    private TextStructure text;
+    private TextStructure spriteText;
+    private AtlasTextStructure atlasText;
+    private long number;
+
+    @Setup
+    public void setup() throws IOException {
+        frame = Scenes.frame();
+        g = Scenes.begin(frame);
+        BufferedImage source = Scenes.image(256, 256);
+        image = new ImageStructure(10, 10, source);
+        scaledImage = new ImageStructure(10, 10, 100, 100, source);
+        scaledImage.setScaleQuality(ScaleQuality.BILINEAR);
+        text = new TextStructure(10, 300, "The quick brown fox jumps over the lazy dog");
+        spriteText = new TextStructure(10, 330, "The quick brown fox jumps over the lazy dog");
+        spriteText.setSpriteMode(true);
+        atlasText = new AtlasTextStructure(10, 360, null, Color.BLACK, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public void image() {
+        image.render(g);
+    }
+
+    @Benchmark
+    public void scaledImage() {
+        scaledImage.render(g);
+    }
+
+    @Benchmark
+    public void text() {
+        text.render(g);
+    }
+
+    @Benchmark
+    public void spriteText() {
+        spriteText.render(g);
+    }
+
+    @Benchmark
+    public void atlasCounter() {
+        atlasText.setNumber(number++);
+        atlasText.render(g);
+    }
+}
@@ -0,0 +1,85 @@
+package com.kronae.roost.bench;
+
+import com.kronae.roost.render.Scene;
+import com.kronae.roost.structure.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Scenes shared by the benchmarks. They are made with a fixed seed, so every run draws the same thing.
+ */
+final class Scenes {
+    static final int WIDTH = 1920;
+    static final int HEIGHT = 1080;
+
+    private Scenes() {
+    }
+
+    /**
+     * Make a scene of mixed structures: squares, rect batches, texts and images.
+     * @param count Number of structures
+     * @return Scene
+     */
+    static Scene mixed(int count) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        BufferedImage image = image(32, 32);
+        Scene scene = new Scene();
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(WIDTH);
+            int y = random.nextInt(HEIGHT);
+            switch (i % 4) {
+                case 0 -> scene.add(new SquareStructure(x, y, 1 + random.nextInt(64), 1 + random.nextInt(64)));
+                case 1 -> {
+                    RectBatchStructure batch = new RectBatchStructure(16);
+                    for (int j = 0; j < 16; j++)
+                        batch.add(x + random.nextInt(64), y + random.nextInt(64), 4, 4);
+                    batch.commit();
+                    scene.add(batch);
+                }
+                case 2 -> scene.add(new TextStructure(x, y, "Roost " + i));
+                default -> scene.add(new ImageStructure(x, y, image));
+            }
+        }
+        return scene;
+    }
+
+    /**
+     * Make an image with a gradient, so it is not a single color.
+     * @param width Width of the image
+     * @param height Height of the image
+     * @return Image
+     */
+    static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Make the frame the benchmarks draw into.
+     * @return Frame image
+     */
+    static BufferedImage frame() {
+        return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Clear the frame like a window does before drawing.
+     * @param frame Frame image
+     * @return Graphics of the frame
+     */
+    static Graphics2D begin(BufferedImage frame) {
+        Graphics2D g = frame.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+        g.setColor(Color.BLACK);
+        return g;
+    }
+}
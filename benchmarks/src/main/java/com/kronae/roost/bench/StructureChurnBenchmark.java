@@ -0,0 +1,73 @@
+package com.kronae.roost.bench;
+
+import com.kronae.roost.render.Scene;
+import com.kronae.roost.structure.RoostStructure;
+import com.kronae.roost.structure.SquareStructure;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Add/remove churn and moves on a scene which already has K structures.
+ * Every change is published like a window does after an update, so the grid work is measured too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StructureChurnBenchmark {
+    @Param({"1000", "10000"})
+    public int structures;
+
+    private Scene scene;
+    private SquareStructure[] churn;
+    private SquareStructure[] moving;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        scene = Scenes.mixed(structures);
+        random = new SplittableRandom(7);
+        churn = new SquareStructure[64];
+        for (int i = 0; i < churn.length; i++)
+            churn[i] = new SquareStructure(random.nextInt(Scenes.WIDTH), random.nextInt(Scenes.HEIGHT), 16, 16);
+        moving = new SquareStructure[64];
+        for (int i = 0; i < moving.length; i++) {
+            moving[i] = new SquareStructure(random.nextInt(Scenes.WIDTH), random.nextInt(Scenes.HEIGHT), 16, 16);
+            scene.add(moving[i]);
+        }
+        scene.publish();
+    }
+
+    /**
+     * Add a structure on top and remove it again, like a short-lived particle.
+     */
+    @Benchmark
+    public boolean addRemove() {
+        SquareStructure structure = churn[next++ & (churn.length - 1)];
+        scene.add(structure);
+        scene.publish();
+        boolean removed = scene.remove(structure);
+        scene.publish();
+        return removed;
+    }
+
+    @Benchmark
+    public void move() {
+        SquareStructure structure = moving[next++ & (moving.length - 1)];
+        structure.move(random.nextInt(Scenes.WIDTH), random.nextInt(Scenes.HEIGHT));
+        scene.publish();
+    }
+
+    @Benchmark
+    public List<RoostStructure> findAt() {
+        return scene.find(new Rectangle(random.nextInt(Scenes.WIDTH), random.nextInt(Scenes.HEIGHT), 64, 64));
+    }
+}
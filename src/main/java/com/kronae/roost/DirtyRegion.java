@@ -0,0 +1,104 @@
+package com.kronae.roost;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * Collect the areas of the window which have to be repainted.
+ * Overlapping areas are merged, and when too much is dirty, it becomes a full repaint.
+ */
+public class DirtyRegion {
+    private static final int MAX_RECTANGLES = 16;
+
+    private final ArrayList<Rectangle> rectangles = new ArrayList<>();
+    private boolean full = true;
+    private float threshold = 0.5F;
+
+    /**
+     * Set how much of the window can be dirty before it becomes a full repaint.
+     * @param threshold Fraction(0.0 ~ 1.0) of the window area
+     */
+    public synchronized void setThreshold(float threshold) {
+        if(threshold < 0 || threshold > 1) throw new IllegalArgumentException("threshold must be between 0 and 1: " + threshold);
+        this.threshold = threshold;
+    }
+
+    /**
+     * Mark the area dirty.
+     * @param area Dirty area. null means the whole window.
+     */
+    public synchronized void add(@Nullable Rectangle area) {
+        if(full)
+            return;
+        if(area == null) {
+            markFull();
+            return;
+        }
+        if(area.isEmpty())
+            return;
+
+        Rectangle merged = new Rectangle(area);
+        for (int i = 0; i < rectangles.size(); ) {
+            Rectangle rectangle = rectangles.get(i);
+            if(rectangle.intersects(merged)) {
+                merged.add(rectangle);
+                rectangles.set(i, rectangles.get(rectangles.size() - 1));
+                rectangles.remove(rectangles.size() - 1);
+                i = 0; // The union may touch the rectangles already passed.
+            } else {
+                i++;
+            }
+        }
+        rectangles.add(merged);
+
+        if(rectangles.size() > MAX_RECTANGLES) {
+            Rectangle union = new Rectangle(rectangles.get(0));
+            for (Rectangle rectangle : rectangles) {
+                union.add(rectangle);
+            }
+            rectangles.clear();
+            rectangles.add(union);
+        }
+    }
+
+    /**
+     * Mark the whole window dirty.
+     */
+    public synchronized void markFull() {
+        full = true;
+        rectangles.clear();
+    }
+
+    /**
+     * Take the dirty areas and clear them.
+     * @param out List to put the dirty areas, clipped to the window, into
+     * @param width Width of the window
+     * @param height Height of the window
+     * @return true if the whole window has to be repainted. out is left empty then.
+     */
+    public synchronized boolean drain(@NotNull ArrayList<Rectangle> out, int width, int height) {
+        if(full) {
+            full = false;
+            return true;
+        }
+
+        long area = 0;
+        for (Rectangle rectangle : rectangles) {
+            Rectangle clipped = rectangle.intersection(new Rectangle(0, 0, width, height));
+            if(clipped.isEmpty())
+                continue;
+            area += (long) clipped.width * clipped.height;
+            out.add(clipped);
+        }
+        rectangles.clear();
+
+        if(area > threshold * width * height) {
+            out.clear();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,178 @@
+package com.kronae.roost;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Fixed-timestep game loop.
+ * Updates run at a fixed rate, and frames are rendered at the target FPS(or as fast as possible).
+ * If a frame falls behind, up to maxFrameSkip updates are run before the next render.
+ * <p>
+ * The loop runs as a task which reschedules itself on a RoostRuntime, so many loops can share the same threads.
+ */
+public class FrameLoop {
+    public interface Target {
+        /**
+         * Run one fixed update step.
+         */
+        void update();
+        /**
+         * Render a frame.
+         * @param alpha How far(0.0 ~ 1.0) the time is between the last update and the next one.
+         */
+        void render(float alpha);
+    }
+
+    private final @NotNull Target target;
+    private volatile int updateRate = 60;
+    private volatile int targetFps = 60;
+    private volatile int maxFrameSkip = 5;
+    private volatile boolean running;
+    private RoostRuntime runtime;
+    private volatile ScheduledFuture<?> pending;
+    private volatile int generation;
+
+    private long previous;
+    private long lag;
+    private long nextFrame;
+
+    public FrameLoop(@NotNull Target target) {
+        this.target = target;
+    }
+
+    /*============================== Set / Get ==============================*/
+    /**
+     * Set the number of updates per second.
+     * @param updateRate Updates per second
+     */
+    public void setUpdateRate(int updateRate) {
+        if(updateRate <= 0) throw new IllegalArgumentException("updateRate must be positive: " + updateRate);
+        this.updateRate = updateRate;
+    }
+    /**
+     * Set the target frames per second.
+     * @param targetFps Frames per second. 0 means uncapped.
+     */
+    public void setTargetFps(int targetFps) {
+        if(targetFps < 0) throw new IllegalArgumentException("targetFps must not be negative: " + targetFps);
+        this.targetFps = targetFps;
+    }
+    /**
+     * Set the maximum number of updates run in a row when a frame falls behind.
+     * @param maxFrameSkip Maximum updates per rendered frame
+     */
+    public void setMaxFrameSkip(int maxFrameSkip) {
+        if(maxFrameSkip <= 0) throw new IllegalArgumentException("maxFrameSkip must be positive: " + maxFrameSkip);
+        this.maxFrameSkip = maxFrameSkip;
+    }
+    public int getUpdateRate() {
+        return updateRate;
+    }
+    public int getTargetFps() {
+        return targetFps;
+    }
+    public int getMaxFrameSkip() {
+        return maxFrameSkip;
+    }
+    public boolean isRunning() {
+        return running;
+    }
+
+    /*============================== Start / Stop ==============================*/
+    /**
+     * Start the loop on the threads of a runtime. Each frame is a task on its render pool,
+     * and the scheduler of the runtime runs the next one when it is due.
+     * @param runtime Runtime to run on
+     */
+    public synchronized void start(@NotNull RoostRuntime runtime) {
+        if(running) return;
+        running = true;
+        this.runtime = runtime;
+        reset(System.nanoTime());
+        int generation = ++this.generation;
+        runtime.render(() -> step(generation));
+    }
+    /**
+     * Stop the loop. The current frame is finished first.
+     */
+    public synchronized void stop() {
+        running = false;
+        generation++;
+        ScheduledFuture<?> pending = this.pending;
+        if(pending != null)
+            pending.cancel(false);
+        this.pending = null;
+        runtime = null;
+    }
+
+    /**
+     * Run a frame on the runtime and schedule the next one.
+     * @param generation Start the frame belongs to. A frame of an older start does nothing.
+     */
+    private void step(int generation) {
+        if(generation != this.generation) return;
+        long deadline;
+        try {
+            deadline = tick(System.nanoTime());
+        } catch (RuntimeException | Error e) {
+            // The loop dies with the exception instead of running on silently.
+            synchronized (this) {
+                if(generation == this.generation)
+                    stop();
+            }
+            Thread current = Thread.currentThread();
+            current.getUncaughtExceptionHandler().uncaughtException(current, e);
+            return;
+        }
+        synchronized (this) {
+            RoostRuntime runtime = this.runtime;
+            if(generation != this.generation || runtime == null) return;
+            if(deadline - System.nanoTime() <= 0)
+                runtime.render(() -> step(generation));
+            else
+                pending = runtime.renderAt(() -> step(generation), deadline);
+        }
+    }
+
+    /*============================== Tick ==============================*/
+    /**
+     * Reset the clock of the loop.
+     * @param now Current time(System.nanoTime())
+     */
+    public void reset(long now) {
+        previous = now;
+        lag = 0;
+        nextFrame = now;
+    }
+    /**
+     * Run the updates that are due, then render one frame.
+     * @param now Current time(System.nanoTime())
+     * @return Time(System.nanoTime()) the next frame is due
+     */
+    public long tick(long now) {
+        long step = 1_000_000_000L / updateRate;
+        lag += now - previous;
+        previous = now;
+
+        int updates = 0;
+        while(lag >= step && updates < maxFrameSkip) {
+            target.update();
+            lag -= step;
+            updates++;
+        }
+        // Still behind after maxFrameSkip updates: drop the rest instead of spiraling.
+        if(lag >= step)
+            lag %= step;
+
+        target.render((float) lag / step);
+
+        int fps = targetFps;
+        if(fps == 0)
+            return now;
+        nextFrame += 1_000_000_000L / fps;
+        if(nextFrame < now)
+            nextFrame = now;
+        return nextFrame;
+    }
+}
@@ -0,0 +1,419 @@
+package com.kronae.roost;
+
+import com.kronae.roost.custom.RoostScript;
+import com.kronae.roost.event.EventDispatcher;
+import com.kronae.roost.event.RoostEvent;
+import com.kronae.roost.exception.AlreadyOpenException;
+import com.kronae.roost.exception.NotOpenException;
+import com.kronae.roost.input.InputState;
+import com.kronae.roost.jfr.FrameEvent;
+import com.kronae.roost.profile.FrameProfiler;
+import com.kronae.roost.render.Scene;
+import com.kronae.roost.render.TileCompositor;
+import com.kronae.roost.status.CloseType;
+import com.kronae.roost.status.WindowStatus;
+import com.kronae.roost.structure.RoostStructure;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Window which draws into BufferedImages instead of the screen.
+ * It runs the same scripts, events and structures as Window2D, and works on headless machines.
+ * <p>
+ * Frames are pulled with nextFrame(), or pushed to a frame consumer after open().
+ * Images come from a pool; give them back with release(BufferedImage) when they are no longer used.
+ * Frames are made one at a time: nextFrame(), draw() and the pushed frames wait for each other.
+ */
+public class OffscreenWindow implements Window {
+    /*============================== Field Variables ==============================*/
+    private final WindowCore core;
+    private final ScriptScheduler scripts;
+    private final EventDispatcher dispatcher;
+    private final Scene scene;
+    private final FrameProfiler profiler;
+    private final FrameLoop loop;
+    private final InputState input = new InputState();
+    private volatile RoostRuntime runtime = RoostRuntime.getDefault();
+    private final int width;
+    private final int height;
+    private final int imageType;
+    private final ArrayBlockingQueue<BufferedImage> pool;
+    private volatile @Nullable Consumer<BufferedImage> frameConsumer;
+    private volatile boolean throughputMode;
+    private volatile Thread throughputThread;
+    private volatile Color background = Color.WHITE;
+    private volatile @Nullable TileCompositor compositor;
+    private volatile WindowStatus windowStatus = WindowStatus.CLOSE;
+    private String name = "Offscreen";
+    private final Object frameLock = new Object();
+
+    /*============================== Constructors ==============================*/
+    /**
+     * Constructor with TYPE_INT_RGB images.
+     * @param width Width of the frames
+     * @param height Height of the frames
+     */
+    public OffscreenWindow(int width, int height) {
+        this(width, height, BufferedImage.TYPE_INT_RGB, 4);
+    }
+    /**
+     * Constructor
+     * @param width Width of the frames
+     * @param height Height of the frames
+     * @param imageType Type of the frame images(BufferedImage.TYPE_*)
+     * @param poolSize Number of released images kept for the next frames
+     */
+    public OffscreenWindow(int width, int height, int imageType, int poolSize) {
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("Size must be positive: " + width + "x" + height);
+        if(poolSize <= 0) throw new IllegalArgumentException("poolSize must be positive: " + poolSize);
+        this.width = width;
+        this.height = height;
+        this.imageType = imageType;
+        this.core = new WindowCore();
+        this.dispatcher = core.dispatcher;
+        this.profiler = core.profiler;
+        this.scripts = core.scripts;
+        this.scene = core.scene;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.loop = new FrameLoop(new FrameLoop.Target() {
+            @Override
+            public void update() {
+                if(windowStatus == WindowStatus.OPEN)
+                    updateScripts();
+            }
+
+            @Override
+            public void render(float alpha) {
+                if(windowStatus != WindowStatus.OPEN) return;
+                synchronized (frameLock) {
+                    scripts.interpolate(alpha);
+                    push();
+                }
+            }
+        });
+    }
+
+    /*============================== Add ==============================*/
+    /**
+     * Add script into the window.
+     * @param script Roost script
+     */
+    public void addScript(RoostScript script) {
+        scripts.add(script);
+    }
+    /**
+     * Add structure into the window.
+     * @param structure Roost structure
+     */
+    public void addStructure(@NotNull RoostStructure structure) {
+        scene.add(structure);
+    }
+    /**
+     * Remove structure from the window.
+     * @param structure Roost structure
+     * @return Whether the structure was in the window
+     */
+    public boolean removeStructure(@NotNull RoostStructure structure) {
+        return scene.remove(structure);
+    }
+
+    /*============================== Set ==============================*/
+    /**
+     * Set the name of the window. It is used for the throughput thread, JMX and JFR.
+     * @param name Name of the window
+     */
+    public void setName(@NotNull String name) {
+        this.name = name;
+    }
+    /**
+     * Set the color the frames are cleared with.
+     * @param color Background color
+     */
+    public void setBackgroundColor(@NotNull Color color) {
+        background = color;
+    }
+    /**
+     * Set the consumer which frames are pushed to after open().
+     * The consumer owns the image; release it to reuse it for a later frame.
+     * Without a consumer, frames are only drawn by nextFrame().
+     * @param frameConsumer Consumer of the frames, or null
+     */
+    public void setFrameConsumer(@Nullable Consumer<BufferedImage> frameConsumer) {
+        this.frameConsumer = frameConsumer;
+    }
+    /**
+     * Set throughput mode of the window.
+     * If you turns on, pushed frames are drawn one after another without pacing,
+     * and every frame runs exactly one update. Otherwise, the frame loop paces them like Window2D.
+     * It takes effect on open().
+     * @param throughputMode Throughput mode
+     */
+    public void setThroughputMode(boolean throughputMode) {
+        this.throughputMode = throughputMode;
+    }
+    /**
+     * Set the runtime whose threads run the frame loop of the paced mode. The default runtime unless it is set.
+     * It takes effect on open().
+     * @param runtime Roost runtime
+     */
+    public void setRuntime(@NotNull RoostRuntime runtime) {
+        this.runtime = runtime;
+    }
+    /**
+     * Set tile compositing of the window.
+     * If you turns on, frames larger than a tile are split into tiles which are drawn in parallel on the common fork-join pool.
+     * The frames are the same as the ones drawn on a single thread.
+     * @param tileSize Width and height of a tile. 0 turns it off.
+     */
+    public void setTileCompositing(int tileSize) {
+        compositor = tileSize == 0 ? null : new TileCompositor(tileSize);
+    }
+    /**
+     * Set tile compositing of the window with your own compositor(and its pool).
+     * @param compositor Tile compositor, or null to turn it off
+     */
+    public void setTileCompositor(@Nullable TileCompositor compositor) {
+        this.compositor = compositor;
+    }
+    /**
+     * Set the number of updates per second of the paced mode.
+     * @param updateRate Updates per second
+     */
+    public void setUpdateRate(int updateRate) {
+        loop.setUpdateRate(updateRate);
+    }
+    /**
+     * Set the target frames per second of the paced mode.
+     * @param targetFps Frames per second. 0 means uncapped.
+     */
+    public void setTargetFps(int targetFps) {
+        loop.setTargetFps(targetFps);
+    }
+    /**
+     * Set profiling mode of the window.
+     * @param profiling profiling mode of the window.
+     * @see Window2D#setProfiling(boolean)
+     */
+    public void setProfiling(boolean profiling) {
+        profiler.setEnabled(profiling);
+        if(!profiling)
+            profiler.unregister();
+        else if(windowStatus == WindowStatus.OPEN)
+            profiler.register(name);
+    }
+
+    /*============================== Get ==============================*/
+    public int getWidth() {
+        return width;
+    }
+    public int getHeight() {
+        return height;
+    }
+    public boolean isOpen() {
+        return windowStatus == WindowStatus.OPEN;
+    }
+    public @NotNull Scene getScene() {
+        return scene;
+    }
+    public @NotNull FrameProfiler getProfiler() {
+        return profiler;
+    }
+    /**
+     * Get the keys of the window. An offscreen window has no keyboard, so they are only the ones you write into it.
+     * @return Input state of the window
+     */
+    public @NotNull InputState getInput() {
+        return input;
+    }
+    public @NotNull ScriptScheduler getScriptScheduler() {
+        return scripts;
+    }
+
+    /*============================== Open / Close ==============================*/
+    /**
+     * Open the window. Scripts are opened, and frames start to be pushed if there is a frame consumer.
+     * @throws AlreadyOpenException If the window is already open
+     */
+    public synchronized void open() throws AlreadyOpenException {
+        if(windowStatus != WindowStatus.CLOSE)
+            throw new AlreadyOpenException("Roost: ERROR: Open FAILED because it is ALREADY open.");
+        windowStatus = WindowStatus.OPEN;
+        core.openScripts(this);
+        if(profiler.isEnabled())
+            profiler.register(name);
+        if(frameConsumer == null)
+            return;
+        if(!throughputMode) {
+            loop.start(runtime);
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            while(windowStatus == WindowStatus.OPEN && !Thread.currentThread().isInterrupted()) {
+                synchronized (frameLock) {
+                    updateScripts();
+                    scripts.interpolate(1.0F);
+                    push();
+                }
+            }
+        }, "Roost-Throughput-" + name);
+        thread.setDaemon(true);
+        throughputThread = thread;
+        thread.start();
+    }
+    /**
+     * Close the window with CloseType.
+     * @param cancelable Whether cancellation is possible
+     * @param closeType The type of close.
+     * @return Is closed
+     */
+    public synchronized boolean close(boolean cancelable, CloseType closeType) {
+        if(windowStatus != WindowStatus.OPEN)
+            return false;
+        for (RoostScript script : scripts.getScripts()) {
+            if(!script.closeQueue() && cancelable)
+                return false;
+        }
+        windowStatus = WindowStatus.LOADING;
+        loop.stop();
+        Thread thread = throughputThread;
+        if(thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        throughputThread = null;
+        core.closeScripts(closeType);
+        profiler.unregister();
+        windowStatus = WindowStatus.CLOSE;
+        return true;
+    }
+    /**
+     * Close the window successfully.
+     * @param cancelable Whether cancellation is possible
+     * @return Is closed
+     */
+    public boolean close(boolean cancelable) {
+        return close(cancelable, CloseType.SUCCESSFULLY);
+    }
+
+    /*============================== Frame ==============================*/
+    /**
+     * Run one update and draw a new frame.
+     * @return Frame image. Release it when it is no longer used.
+     */
+    public @NotNull BufferedImage nextFrame() {
+        if(windowStatus != WindowStatus.OPEN)
+            throw new NotOpenException("Roost: ERROR: Cannot draw a frame because the window is not open. (Status: " + windowStatus + ")");
+        synchronized (frameLock) {
+            updateScripts();
+            scripts.interpolate(1.0F);
+            BufferedImage image = acquire();
+            draw(image);
+            return image;
+        }
+    }
+    /**
+     * Draw the structures into an image without updating the scripts.
+     * The image may have any size; the structures outside of it are culled.
+     * @param image Image to draw into
+     */
+    public void draw(@NotNull BufferedImage image) {
+        synchronized (frameLock) {
+            FrameEvent event = new FrameEvent();
+            event.begin();
+            TileCompositor compositor = this.compositor;
+            if(compositor != null) {
+                compositor.draw(scene, image, background);
+                endFrame(event);
+                return;
+            }
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setColor(background);
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+                g.setColor(Color.BLACK);
+                g.setClip(0, 0, image.getWidth(), image.getHeight());
+                scene.draw(g);
+            } finally {
+                g.dispose();
+            }
+            endFrame(event);
+        }
+    }
+    /**
+     * Give an image back to the pool, so a later frame can draw into it.
+     * Images which are not from this window, or which the pool has no room for, are dropped.
+     * @param image Frame image
+     */
+    public void release(@NotNull BufferedImage image) {
+        if(image.getWidth() == width && image.getHeight() == height && image.getType() == imageType)
+            pool.offer(image);
+    }
+
+    private @NotNull BufferedImage acquire() {
+        BufferedImage image = pool.poll();
+        return image != null ? image : new BufferedImage(width, height, imageType);
+    }
+
+    /**
+     * Draw a frame and push it to the frame consumer.
+     */
+    private void push() {
+        Consumer<BufferedImage> consumer = frameConsumer;
+        if(consumer == null) return;
+        BufferedImage image = acquire();
+        draw(image);
+        consumer.accept(image);
+    }
+
+    /**
+     * Count the frame and commit its profile and JFR event.
+     * @param event JFR event began at the start of the frame
+     */
+    private void endFrame(@NotNull FrameEvent event) {
+        core.endFrame(event, name, false);
+    }
+
+    /**
+     * Update the scripts.
+     */
+    private void updateScripts() {
+        synchronized (frameLock) {
+            input.beginUpdate();
+            scripts.update(windowStatus);
+            // Publish here too, so the staged changes do not pile up while no frame is drawn.
+            scene.publish();
+        }
+    }
+
+    /*============================== Event ==============================*/
+    /**
+     * Add event listeners
+     * @param eventListener Listener
+     */
+    public void addEventListener(@NotNull EventListener eventListener) {
+        try {
+            dispatcher.register(eventListener);
+        } catch (IllegalAccessException e) {
+            throw new IllegalAccessError("Roost: ERROR: Cannot add the listener because OffscreenWindow CANNOT access to the method.");
+        }
+    }
+    /**
+     * Call event
+     * @param event RoostEvent
+     */
+    public void callEvent(RoostEvent event) {
+        if(windowStatus != WindowStatus.OPEN)
+            throw new NotOpenException("Roost: ERROR: Cannot call event because the window is not open. (Status: " + windowStatus + ")");
+
+        core.dispatch(event);
+    }
+}
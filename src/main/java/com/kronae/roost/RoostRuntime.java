@@ -0,0 +1,161 @@
+package com.kronae.roost;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Threads shared by every window of the process.
+ * <p>
+ * One scheduler thread waits for the deadlines of all frame loops, and the frames run on a render pool,
+ * so the number of threads does not grow with the number of windows.
+ * Error reports run on a single thread with a bounded queue, and one shutdown hook runs the shutdown tasks of every window.
+ * The threads are daemons, and idle ones stop after a while, so they never keep the process alive.
+ */
+public class RoostRuntime {
+    private static final int ERROR_QUEUE = 256;
+    private static final long KEEP_ALIVE_SECONDS = 1;
+    private static final RoostRuntime DEFAULT = new RoostRuntime(Integer.getInteger("roost.renderThreads", Runtime.getRuntime().availableProcessors()));
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadPoolExecutor renderPool;
+    private final ThreadPoolExecutor errorReporter;
+    private final CopyOnWriteArrayList<Runnable> shutdownTasks = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedErrors = new AtomicLong();
+    // Reports waiting for their delay or in the queue of the error reporter.
+    private final AtomicInteger waitingErrors = new AtomicInteger();
+
+    /**
+     * Constructor
+     * @param renderThreads Number of threads which run the frames
+     */
+    public RoostRuntime(int renderThreads) {
+        if(renderThreads <= 0) throw new IllegalArgumentException("renderThreads must be positive: " + renderThreads);
+        scheduler = new ScheduledThreadPoolExecutor(1, threads("Roost-Scheduler"));
+        scheduler.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+        renderPool = new ThreadPoolExecutor(renderThreads, renderThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threads("Roost-Render"));
+        renderPool.allowCoreThreadTimeOut(true);
+        errorReporter = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(ERROR_QUEUE), threads("Roost-Error"),
+                (report, executor) -> droppedErrors.incrementAndGet());
+        errorReporter.allowCoreThreadTimeOut(true);
+        Thread hook = new Thread(this::shutdown, "Roost-ShutdownHook");
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    /**
+     * Get the runtime shared by the windows. (Render threads: the number of processors, or the system property roost.renderThreads)
+     * @return Default runtime
+     */
+    public static @NotNull RoostRuntime getDefault() {
+        return DEFAULT;
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            // A window closing must not depend on these threads, and they must not keep the process alive.
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*============================== Set / Get ==============================*/
+    /**
+     * Set the number of threads which run the frames.
+     * @param renderThreads Number of threads
+     */
+    public void setRenderThreads(int renderThreads) {
+        if(renderThreads <= 0) throw new IllegalArgumentException("renderThreads must be positive: " + renderThreads);
+        // The maximum has to stay above the core size while it changes.
+        if(renderThreads > renderPool.getMaximumPoolSize()) {
+            renderPool.setMaximumPoolSize(renderThreads);
+            renderPool.setCorePoolSize(renderThreads);
+        } else {
+            renderPool.setCorePoolSize(renderThreads);
+            renderPool.setMaximumPoolSize(renderThreads);
+        }
+    }
+    public int getRenderThreads() {
+        return renderPool.getCorePoolSize();
+    }
+    /**
+     * Get the number of error reports dropped because the queue of the error reporter was full.
+     * @return Dropped error reports
+     */
+    public long getDroppedErrorReports() {
+        return droppedErrors.get();
+    }
+
+    /*============================== Run ==============================*/
+    /**
+     * Run a task on the render pool.
+     * @param task Task
+     */
+    public void render(@NotNull Runnable task) {
+        renderPool.execute(task);
+    }
+    /**
+     * Run a task on the render pool at a time.
+     * @param task Task
+     * @param deadline Time(System.nanoTime()) to run the task at
+     * @return Future of the scheduling, to cancel it
+     */
+    public @NotNull ScheduledFuture<?> renderAt(@NotNull Runnable task, long deadline) {
+        return scheduler.schedule(() -> renderPool.execute(task), deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+    /**
+     * Report an error on the error thread after a short delay, so the exception is thrown first.
+     * If too many reports are waiting, the report is dropped.
+     * @param report Task which reports the error
+     */
+    public void reportError(@NotNull Runnable report) {
+        // The bound is checked before the delay, so the queue of the scheduler does not grow with the reports either.
+        if(waitingErrors.incrementAndGet() > ERROR_QUEUE) {
+            waitingErrors.decrementAndGet();
+            droppedErrors.incrementAndGet();
+            return;
+        }
+        scheduler.schedule(() -> errorReporter.execute(() -> {
+            waitingErrors.decrementAndGet();
+            report.run();
+        }), 5, TimeUnit.MILLISECONDS);
+    }
+
+    /*============================== Shutdown ==============================*/
+    /**
+     * Add a task run when the program is closing.
+     * @param task Task
+     */
+    public void addShutdownTask(@NotNull Runnable task) {
+        shutdownTasks.addIfAbsent(task);
+    }
+    /**
+     * Remove a task added by addShutdownTask().
+     * @param task Task
+     */
+    public void removeShutdownTask(@NotNull Runnable task) {
+        shutdownTasks.remove(task);
+    }
+
+    private void shutdown() {
+        for (Runnable task : shutdownTasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace(System.err);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.kronae.roost;
+
+import com.kronae.roost.custom.RoostScript;
+import com.kronae.roost.jfr.ScriptEvent;
+import com.kronae.roost.profile.FrameProfiler;
+import com.kronae.roost.status.WindowStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the update() of the scripts of a window.
+ * <p>
+ * By default the scripts are updated one after another in the order they are added.
+ * In parallel mode, scripts which are independent(RoostScript.isIndependent()) run on a fork-join pool,
+ * while the others run one after another on the calling thread. Scripts run after the scripts they depend on
+ * (RoostScript.getDependencies()), and every update is finished before update() returns, so before the frame is drawn.
+ * <p>
+ * An update which takes longer than its budget is reported to the overrun listener. It is never interrupted.
+ */
+public class ScriptScheduler {
+    /**
+     * Listener of the updates which take longer than their budget.
+     */
+    @FunctionalInterface
+    public interface OverrunListener {
+        /**
+         * Called after the update. In parallel mode, it may be called from a thread of the pool.
+         * @param script Script which overran
+         * @param nanos Time the update took
+         * @param budgetNanos Budget of the update
+         */
+        void overrun(@NotNull RoostScript script, long nanos, long budgetNanos);
+    }
+
+    private static final RoostScript[] NO_SCRIPTS = new RoostScript[0];
+
+    private final FrameProfiler profiler;
+    private volatile RoostScript[] scripts = NO_SCRIPTS;
+    private volatile @Nullable Plan plan;
+    private volatile boolean parallel;
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+    private volatile long defaultBudgetNanos;
+    private volatile @Nullable OverrunListener overrunListener;
+
+    /**
+     * Constructor
+     * @param profiler Profiler which measures the updates
+     */
+    public ScriptScheduler(@NotNull FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /*============================== Scripts ==============================*/
+    /**
+     * Add script. It is updated after the scripts already added.
+     * @param script Roost script
+     */
+    public synchronized void add(@NotNull RoostScript script) {
+        RoostScript[] next = Arrays.copyOf(scripts, scripts.length + 1);
+        next[scripts.length] = script;
+        scripts = next;
+    }
+    /**
+     * Get the scripts in the order they are added.
+     * @return Snapshot of the scripts. Do not modify it.
+     */
+    public RoostScript @NotNull [] getScripts() {
+        return scripts;
+    }
+
+    /*============================== Set ==============================*/
+    /**
+     * Set parallel mode.
+     * @param parallel Whether the independent scripts are updated in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+    public boolean isParallel() {
+        return parallel;
+    }
+    /**
+     * Set the pool the independent scripts are updated on in parallel mode. The common pool by default.
+     * @param pool Fork-join pool
+     */
+    public void setPool(@NotNull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    /**
+     * Set the budget of the scripts which do not have their own.
+     * @param budgetNanos Budget in nanoseconds. 0 means no budget.
+     */
+    public void setDefaultBudgetNanos(long budgetNanos) {
+        if(budgetNanos < 0) throw new IllegalArgumentException("budgetNanos must not be negative: " + budgetNanos);
+        this.defaultBudgetNanos = budgetNanos;
+    }
+    public long getDefaultBudgetNanos() {
+        return defaultBudgetNanos;
+    }
+    /**
+     * Set the listener of the updates which take longer than their budget.
+     * @param overrunListener Listener, or null
+     */
+    public void setOverrunListener(@Nullable OverrunListener overrunListener) {
+        this.overrunListener = overrunListener;
+    }
+
+    /*============================== Run ==============================*/
+    /**
+     * Update every script. It returns after all of them are finished.
+     * @param status Status of the window
+     */
+    public void update(@NotNull WindowStatus status) {
+        RoostScript[] scripts = this.scripts;
+        if(!parallel) {
+            for (RoostScript script : scripts) {
+                run(script, status);
+            }
+            return;
+        }
+        Plan plan = plan(scripts);
+        for (int wave = 0; wave < plan.serial.length; wave++) {
+            RoostScript[] independent = plan.independent[wave];
+            RoostScript[] serial = plan.serial[wave];
+            if(independent.length == 0) {
+                for (RoostScript script : serial) {
+                    run(script, status);
+                }
+                continue;
+            }
+            Updates updates = new Updates(independent, status, 0, independent.length);
+            pool.execute(updates);
+            try {
+                for (RoostScript script : serial) {
+                    run(script, status);
+                }
+            } finally {
+                // Barrier: the next wave(and the frame) waits for every update of this wave.
+                updates.quietlyJoin();
+            }
+            Throwable failure = updates.getException();
+            if(failure instanceof RuntimeException exception) throw exception;
+            if(failure instanceof Error error) throw error;
+            if(failure != null) throw new RuntimeException(failure);
+        }
+    }
+    /**
+     * Interpolate every script, one after another.
+     * @param alpha How far(0.0 ~ 1.0) the time is between the last update and the next one.
+     */
+    public void interpolate(float alpha) {
+        for (RoostScript script : scripts) {
+            script.interpolate(alpha);
+        }
+    }
+
+    /**
+     * Update a script, measuring it if profiling mode, JFR or a budget is on.
+     */
+    private void run(RoostScript script, WindowStatus status) {
+        ScriptEvent event = new ScriptEvent();
+        event.begin();
+        long budget = script.getUpdateBudgetNanos();
+        if(budget == 0)
+            budget = defaultBudgetNanos;
+        boolean profiling = profiler.isEnabled();
+        boolean measuring = profiling || budget > 0;
+        long start = measuring ? System.nanoTime() : 0;
+        script.update(status);
+        if(measuring) {
+            long nanos = System.nanoTime() - start;
+            if(profiling)
+                profiler.recordScript(script, nanos);
+            OverrunListener overrunListener = this.overrunListener;
+            if(budget > 0 && nanos > budget && overrunListener != null)
+                overrunListener.overrun(script, nanos, budget);
+        }
+        event.commit(script, ScriptEvent.UPDATE);
+    }
+
+    /*============================== Plan ==============================*/
+    /**
+     * Scripts split into waves. A script is in the wave after the last wave of the scripts it depends on.
+     */
+    private record Plan(RoostScript[] source, RoostScript[][] serial, RoostScript[][] independent) {
+    }
+
+    private Plan plan(RoostScript[] scripts) {
+        Plan plan = this.plan;
+        if(plan != null && plan.source() == scripts)
+            return plan;
+        IdentityHashMap<RoostScript, Integer> waves = new IdentityHashMap<>();
+        int count = 0;
+        for (RoostScript script : scripts) {
+            count = Math.max(count, wave(script, scripts, waves, new IdentityHashMap<>()) + 1);
+        }
+        ArrayList<ArrayList<RoostScript>> serial = new ArrayList<>();
+        ArrayList<ArrayList<RoostScript>> independent = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            serial.add(new ArrayList<>());
+            independent.add(new ArrayList<>());
+        }
+        for (RoostScript script : scripts) {
+            (script.isIndependent() ? independent : serial).get(waves.get(script)).add(script);
+        }
+        plan = new Plan(scripts, toArrays(serial), toArrays(independent));
+        this.plan = plan;
+        return plan;
+    }
+
+    private static int wave(RoostScript script, RoostScript[] scripts, IdentityHashMap<RoostScript, Integer> waves, IdentityHashMap<RoostScript, Boolean> visiting) {
+        Integer known = waves.get(script);
+        if(known != null)
+            return known;
+        if(visiting.put(script, Boolean.TRUE) != null)
+            throw new IllegalStateException("Roost: ERROR: Scripts depend on each other: " + script.getClass().getName());
+        int wave = 0;
+        for (Class<? extends RoostScript> dependency : script.getDependencies()) {
+            for (RoostScript other : scripts) {
+                if(other != script && dependency.isInstance(other))
+                    wave = Math.max(wave, wave(other, scripts, waves, visiting) + 1);
+            }
+        }
+        visiting.remove(script);
+        waves.put(script, wave);
+        return wave;
+    }
+
+    private static RoostScript[][] toArrays(ArrayList<ArrayList<RoostScript>> lists) {
+        RoostScript[][] arrays = new RoostScript[lists.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = lists.get(i).toArray(NO_SCRIPTS);
+        }
+        return arrays;
+    }
+
+    /**
+     * Independent scripts from..to(exclusive). It splits in half until a single script is left.
+     */
+    private final class Updates extends RecursiveAction {
+        private final RoostScript[] scripts;
+        private final WindowStatus status;
+        private final int from;
+        private final int to;
+
+        Updates(RoostScript[] scripts, WindowStatus status, int from, int to) {
+            this.scripts = scripts;
+            this.status = status;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Updates(scripts, status, from, middle), new Updates(scripts, status, middle, to));
+                return;
+            }
+            run(scripts[from], status);
+        }
+    }
+}
@@ -1,4 +1,33 @@
 package com.kronae.roost;
 
+import com.kronae.roost.custom.RoostScript;
+import com.kronae.roost.event.RoostEvent;
+import com.kronae.roost.exception.AlreadyOpenException;
+import com.kronae.roost.input.InputState;
+import com.kronae.roost.render.Scene;
+import com.kronae.roost.structure.RoostStructure;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A window runs scripts, events and structures.
+ * Window2D shows them on the screen, and OffscreenWindow draws them into images.
+ */
 public interface  Window {
+    void addScript(RoostScript script);
+    void addStructure(@NotNull RoostStructure structure);
+    boolean removeStructure(@NotNull RoostStructure structure);
+    void addEventListener(@NotNull EventListener eventListener);
+    void callEvent(RoostEvent event);
+    void open() throws AlreadyOpenException;
+    boolean close(boolean cancelable);
+    /**
+     * Get the scene which holds and draws the structures of the window.
+     * @return Scene of the window
+     */
+    Scene getScene();
+    /**
+     * Get the keys of the window, for the scripts which poll them in update() instead of listening to events.
+     * @return Input state of the window
+     */
+    @NotNull InputState getInput();
 }
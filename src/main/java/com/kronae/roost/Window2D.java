@@ -3,13 +3,20 @@ package com.kronae.roost;
 import com.kronae.roost.custom.RoostScript;
 import com.kronae.roost.event.*;
 import com.kronae.roost.exception.AlreadyOpenException;
+import com.kronae.roost.exception.CannotOpenableException;
 import com.kronae.roost.exception.NotOpenException;
+import com.kronae.roost.input.InputDelivery;
+import com.kronae.roost.input.InputQueue;
+import com.kronae.roost.input.InputState;
+import com.kronae.roost.jfr.ErrorEvent;
+import com.kronae.roost.jfr.FrameEvent;
+import com.kronae.roost.profile.FrameProfiler;
+import com.kronae.roost.render.RendererRegistry;
+import com.kronae.roost.render.Scene;
 import com.kronae.roost.status.CloseType;
 import com.kronae.roost.status.WindowStatus;
-import com.kronae.roost.structure.ImageStructure;
 import com.kronae.roost.structure.RoostStructure;
-import com.kronae.roost.structure.SquareStructure;
-import com.kronae.roost.structure.TextStructure;
+import com.kronae.roost.structure.StructureChangeListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -19,22 +26,51 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferStrategy;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class Window2D implements Window {
     /*============================== Field Variables ==============================*/
+    private static final Rectangle OVERLAY_AREA = new Rectangle(0, 0, 640, 20);
     private volatile JFrame frame;
-    private final ArrayList<RoostScript> scripts;
-    private final ArrayList<EventObj> listeners;
-    private final ArrayList<RoostStructure> structures;
-    private Timer timer;
-    private WindowStatus windowStatus = WindowStatus.CLOSE;
+    private final CompletableFuture<Window2D> ready = new CompletableFuture<>();
+    private final ArrayList<Consumer<JFrame>> pendingFrameTasks = new ArrayList<>();
+    private boolean frameReady;
+    private final ScriptScheduler scripts;
+    private final WindowCore core;
+    private final EventDispatcher dispatcher;
+    private final Scene scene;
+    private final FrameLoop loop;
+    private final InputState input = new InputState();
+    private final InputQueue inputQueue = new InputQueue(1024);
+    private final InputQueue.Sink inputSink = (type, keyCode, keyChar, actionKey) -> callEvent(keyEvent(type, keyCode, keyChar, actionKey));
+    private final ArrayList<RoostEvent> inputBatch = new ArrayList<>();
+    private final InputQueue.Sink inputBatchSink = (type, keyCode, keyChar, actionKey) -> inputBatch.add(keyEvent(type, keyCode, keyChar, actionKey));
+    private volatile InputDelivery inputDelivery = InputDelivery.IMMEDIATE;
+    private volatile RoostRuntime runtime = RoostRuntime.getDefault();
+    // Runtime of the last open(). The shutdown task is removed from it even if setRuntime() is called after open().
+    private volatile @Nullable RoostRuntime openRuntime;
+    private final Runnable shutdownTask;
+    private volatile JPanel panel;
+    private volatile Canvas canvas;
+    private volatile BufferStrategy strategy;
+    private boolean activeRendering;
+    private int bufferCount = 2;
+    private boolean retainsContents;
+    private int lastWidth = -1;
+    private int lastHeight = -1;
+    private final DirtyRegion dirtyRegion;
+    private final ArrayList<Rectangle> dirtyAreas;
+    private volatile boolean dirtyTracking;
+    private final FrameProfiler profiler;
+    private volatile boolean overlay;
+    private volatile WindowStatus windowStatus = WindowStatus.CLOSE;
     private boolean debugMode;
-    private Graphics lastGraphics = null;
     private float opacity = 1.0F;
     private boolean keyMode;
 
@@ -48,26 +84,106 @@ public class Window2D implements Window {
     }
     /**
      * Constructor
+     * The frame is set up later on the Swing thread. Setters called before then are queued and applied together.
      * @param frame The main frame of the window.
      * @param debugMode The default DebugMode of the window.
+     * @see #whenReady()
      */
     public Window2D(JFrame frame, boolean debugMode) {
         this.debugMode = debugMode;
-        scripts = new ArrayList<>();
-        listeners = new ArrayList<>();
-        structures = new ArrayList<>();
+        core = new WindowCore();
+        dispatcher = core.dispatcher;
+        profiler = core.profiler;
+        scripts = core.scripts;
+        scripts.setOverrunListener((script, nanos, budget) -> print(String.format("Window2D: Script %s took %.2fms (budget %.2fms).", script.getClass().getSimpleName(), nanos / 1e6, budget / 1e6)));
+        scene = core.scene;
+        dirtyRegion = new DirtyRegion();
+        dirtyAreas = new ArrayList<>();
+        scene.setChangeListener(new StructureChangeListener() {
+            @Override
+            public void structureChanged(@NotNull RoostStructure structure, @Nullable Rectangle oldBounds) {
+                dirtyRegion.add(oldBounds);
+                dirtyRegion.add(structure.getBounds());
+            }
+
+            @Override
+            public void areaChanged(@NotNull RoostStructure structure, @NotNull Rectangle area) {
+                dirtyRegion.add(area);
+            }
+        });
+        scene.setErrorHandler((structure, e) -> throwError("0x000005", RuntimeException.class, "An exception is occurred while drawing window(Drawing " + structure.getClass().getSimpleName() + ")", """
+                This is unknown error. We can't help you.
+                However, since we know under what conditions this error occurred at the time,
+                We will deliver information about it.
+                Time: {TIME}
+                Structure:""" + " " + structure, true));
+        loop = new FrameLoop(new FrameLoop.Target() {
+            @Override
+            public void update() {
+                // The loop is shared with other windows, so a closed window only stops its own loop.
+                if(windowStatus == WindowStatus.CLOSE) {
+                    loop.stop();
+                    return;
+                }
+
+                if(windowStatus == WindowStatus.OPEN)
+                    updateScripts();
+            }
+
+            @Override
+            public void render(float alpha) {
+                if(windowStatus != WindowStatus.OPEN) return;
+                scripts.interpolate(alpha);
+                Window2D.this.render();
+            }
+        });
+        shutdownTask = () -> {
+            if(windowStatus == WindowStatus.LOADING) {
+                System.out.println("Roost: ShutdownHook: Program is closing.");
+            } else if(windowStatus == WindowStatus.OPEN) {
+                System.out.println("Roost: ShutdownHook: Program is UNEXPECTED closing.");
+                closeUnexpected();
+                System.out.println("Roost: ShutdownHook: Program is UNEXPECTED closed.");
+            }
+        };
         SwingUtilities.invokeLater(() -> {
             this.frame = frame;
-            this.frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            this.frame.add(new JPanel() {
+            // close() disposes the frame, unless the scripts cancel it.
+            this.frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            this.panel = new JPanel() {
                 @Override
                 public void paintComponent(Graphics g) {
-                    super.paintComponents(g);
-                    newFrame(g);
+                    FrameEvent event = new FrameEvent();
+                    event.begin();
+                    super.paintComponent(g);
+                    draw(g);
+                    if(overlay)
+                        drawOverlay(g);
+                    endFrame(event, false);
                 }
-            });
+            };
+            this.frame.add(panel);
+            ArrayList<Consumer<JFrame>> tasks;
+            synchronized (pendingFrameTasks) {
+                tasks = new ArrayList<>(pendingFrameTasks);
+                pendingFrameTasks.clear();
+                frameReady = true;
+            }
+            // Setters called from now on are run after this task, so they stay in order.
+            for (Consumer<JFrame> task : tasks) {
+                task.accept(frame);
+            }
+            ready.complete(this);
         });
     }
+    /**
+     * Create a window, and get the future which is completed when its frame is ready.
+     * @param debugMode The default DebugMode of the window.
+     * @return Future of the window
+     */
+    public static CompletableFuture<Window2D> create(boolean debugMode) {
+        return new Window2D(debugMode).whenReady();
+    }
 
     /*============================== Add ==============================*/
     /**
@@ -88,8 +204,49 @@ public class Window2D implements Window {
     public void setDebugMode(boolean mode) {
         debugMode = mode;
     }
+    /**
+     * Add structure into the window.
+     * @param structure Roost structure
+     */
     public void addStructure(@NotNull RoostStructure structure) {
-        structures.add(structure);
+        scene.add(structure);
+        dirtyRegion.add(structure.getBounds());
+    }
+    /**
+     * Remove structure from the window.
+     * @param structure Roost structure
+     * @return Whether the structure was in the window
+     */
+    public boolean removeStructure(@NotNull RoostStructure structure) {
+        if(!scene.remove(structure))
+            return false;
+        dirtyRegion.add(structure.getBounds());
+        return true;
+    }
+    /**
+     * Set dirty tracking mode of the window.
+     * If you turns on, only the areas of the changed structures are repainted each frame,
+     * instead of the whole window.
+     * Structures which are changed without telling it(not a MutableStructure) need markDirty(Rectangle).
+     * @param dirtyTracking dirtyTracking mode of the window.
+     */
+    public void setDirtyTracking(boolean dirtyTracking) {
+        this.dirtyTracking = dirtyTracking;
+        dirtyRegion.markFull();
+    }
+    /**
+     * Set how much of the window can be dirty before the whole window is repainted.
+     * @param threshold Fraction(0.0 ~ 1.0) of the window area (Default: 0.5)
+     */
+    public void setDirtyThreshold(float threshold) {
+        dirtyRegion.setThreshold(threshold);
+    }
+    /**
+     * Mark the area of the window to be repainted at the next frame.
+     * @param area Area to repaint. null means the whole window.
+     */
+    public void markDirty(@Nullable Rectangle area) {
+        dirtyRegion.add(area);
     }
     /**
      * Set size of the window
@@ -97,20 +254,14 @@ public class Window2D implements Window {
      * @param height Height of the window
      */
     public void setSize(int width, int height) {
-        while(frame == null)
-            Thread.onSpinWait();
-
-        SwingUtilities.invokeLater(() -> frame.setSize(width, height));
+        onFrame(frame -> frame.setSize(width, height));
     }
     /**
      * Set title of the window
      * @param title Title of the window
      */
     public void setTitle(String title) {
-        while(frame == null)
-            Thread.onSpinWait();
-
-        SwingUtilities.invokeLater(() -> {
+        onFrame(frame -> {
             frame.setTitle(title);
             frame.setName(title);
         });
@@ -120,24 +271,91 @@ public class Window2D implements Window {
      * @param b Whether the window can be resized
      */
     public void setResizable(boolean b) {
-        while(frame == null)
-            Thread.onSpinWait();
-
-        SwingUtilities.invokeLater(() -> frame.setResizable(b));
+        onFrame(frame -> frame.setResizable(b));
     }
     /**
      * Set the background color of the window.
      * @param color the background color
      */
     public void setBackgroundColor(Color color) {
-        frame.setBackground(color);
+        onFrame(frame -> frame.setBackground(color));
     }
     /**
      * Set the cursor shape.
      * @param cursor cursor shape.
      */
     public void setCursor(Cursor cursor) {
-        frame.setCursor(cursor);
+        onFrame(frame -> frame.setCursor(cursor));
+    }
+    /**
+     * Set the number of script updates per second.
+     * Updates run at this fixed rate, whatever the frame rate is.
+     * @param updateRate Updates per second (Default: 60)
+     */
+    public void setUpdateRate(int updateRate) {
+        loop.setUpdateRate(updateRate);
+    }
+    /**
+     * Set the target frames per second of the window.
+     * @param targetFps Frames per second. 0 means uncapped. (Default: 60)
+     */
+    public void setTargetFps(int targetFps) {
+        loop.setTargetFps(targetFps);
+    }
+    /**
+     * Set how many updates can run in a row before a frame is rendered, when the window falls behind.
+     * @param maxFrameSkip Maximum updates per frame (Default: 5)
+     */
+    public void setMaxFrameSkip(int maxFrameSkip) {
+        loop.setMaxFrameSkip(maxFrameSkip);
+    }
+    /**
+     * Set the runtime whose threads run the frame loop and report the errors of the window.
+     * Every window uses the default runtime unless it is set. It works from the next open().
+     * @param runtime Roost runtime
+     */
+    public void setRuntime(@NotNull RoostRuntime runtime) {
+        this.runtime = runtime;
+    }
+    /**
+     * Set active rendering mode of the window. It works from the next open().
+     * If you turns on, frames are drawn on the frame loop thread into a Canvas with a BufferStrategy,
+     * instead of waiting for Swing to repaint.
+     * @param activeRendering activeRendering mode of the window.
+     * @param bufferCount Number of buffers (2 or 3)
+     */
+    public void setActiveRendering(boolean activeRendering, int bufferCount) {
+        if(bufferCount < 2 || bufferCount > 3) throw new IllegalArgumentException("bufferCount must be 2 or 3: " + bufferCount);
+        this.activeRendering = activeRendering;
+        this.bufferCount = bufferCount;
+    }
+    /**
+     * Set active rendering mode of the window with double buffering. It works from the next open().
+     * @param activeRendering activeRendering mode of the window.
+     */
+    public void setActiveRendering(boolean activeRendering) {
+        setActiveRendering(activeRendering, bufferCount);
+    }
+    /**
+     * Set profiling mode of the window.
+     * If you turns on, frame times, script updates, structure draws and event dispatches are measured,
+     * and they can be read from getProfiler() or JMX(com.kronae.roost:type=FrameProfiler).
+     * @param profiling profiling mode of the window.
+     */
+    public void setProfiling(boolean profiling) {
+        profiler.setEnabled(profiling);
+        if(!profiling)
+            profiler.unregister();
+        else if(windowStatus == WindowStatus.OPEN)
+            profiler.register(frame.getTitle());
+    }
+    /**
+     * Show the frame times on the top-left of the window. It needs profiling mode.
+     * @param overlay Whether the overlay is shown
+     */
+    public void setOverlay(boolean overlay) {
+        this.overlay = overlay;
+        dirtyRegion.add(OVERLAY_AREA);
     }
     /**
      * Set key listening mode of the window.
@@ -147,26 +365,100 @@ public class Window2D implements Window {
     public void setKeyMode(boolean keyMode) {
         this.keyMode = keyMode;
     }
+    /**
+     * Set how the key events are called in key mode.
+     * Queued events are held in a ring buffer until the next update of the scripts, so the Swing thread is not busy with them,
+     * and the key repeats of a key between two updates are called once.
+     * @param inputDelivery Input delivery (Default: IMMEDIATE)
+     */
+    public void setInputDelivery(@NotNull InputDelivery inputDelivery) {
+        this.inputDelivery = inputDelivery;
+    }
     /**
      * Set the window icon.
      * @param image icon image
      */
     public void setIcon(Image image) {
-        frame.setIconImage(image);
+        onFrame(frame -> frame.setIconImage(image));
     }
     /**
      * Set the font of the window.
      * @param font Font of the window
      */
     public void setFont(Font font) {
-        frame.setFont(font);
+        onFrame(frame -> frame.setFont(font));
     }
 
     /*============================== Get ==============================*/
 
+    /**
+     * Find the structures containing the point, in the order they are drawn.
+     * Structures without bounds are never found, and changes are found after the update they are made in.
+     * @param x X of the point
+     * @param y Y of the point
+     * @return Structures at the point
+     */
+    public List<RoostStructure> findStructures(int x, int y) {
+        return scene.find(x, y);
+    }
+    /**
+     * Find the structures intersecting the area, in the order they are drawn.
+     * Structures without bounds are never found, and changes are found after the update they are made in.
+     * @param area Area to find
+     * @return Structures in the area
+     */
+    public List<RoostStructure> findStructures(@NotNull Rectangle area) {
+        return scene.find(area);
+    }
+    /**
+     * Get the scheduler which updates the scripts of the window.
+     * Turn on its parallel mode to update independent scripts in parallel.
+     * @return Script scheduler
+     */
+    public ScriptScheduler getScriptScheduler() {
+        return scripts;
+    }
+    /**
+     * Get the keys of the window. They are written even if key mode is off.
+     * @return Input state of the window
+     */
+    public @NotNull InputState getInput() {
+        return input;
+    }
+    /**
+     * Get the profiler of the window.
+     * @return Frame profiler
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+    /**
+     * Get the renderer registry the window draws structures with.
+     * Register a StructureRenderer into it to draw your own structures in this window.
+     * It falls back to RendererRegistry.getDefault(), where a renderer draws every window.
+     * @return Renderer registry
+     */
+    public RendererRegistry getRenderers() {
+        return scene.getRenderers();
+    }
+    /**
+     * Get the scene which holds and draws the structures of the window.
+     * @return Scene of the window
+     */
+    public Scene getScene() {
+        return scene;
+    }
+    /**
+     * Get the future which is completed when the frame of the window is ready.
+     * The setters called before then are already applied when it is completed.
+     * @return Future of the window
+     */
+    public CompletableFuture<Window2D> whenReady() {
+        return ready;
+    }
     /**
      * Get raw JFrame of the window.
-     * @return JFrame
+     * @return JFrame, or null if it is not ready yet(whenReady()) or the window is closed.
      */
     public JFrame getRawFrame() {
         return frame;
@@ -174,48 +466,110 @@ public class Window2D implements Window {
 
     /*============================== Open / Close ==============================*/
     /**
-     * Open the window
+     * Open the window, and wait until it is open.
+     * On the Swing thread it cannot wait(the open runs after the current task), so it only queues the open,
+     * and a failure is only reported. Use openAsync() there to get the result.
      * @throws AlreadyOpenException If the window is already open
+     * @throws CannotOpenableException If the window is closed
      */
     public void open() throws AlreadyOpenException {
-        while(frame == null)
-            Thread.onSpinWait();
-
-        SwingUtilities.invokeLater(() -> {
-            // ================================================== OPEN() ================================================== \\
-            if(windowStatus == WindowStatus.OPEN) {
-                throwError("0x000001", AlreadyOpenException.class, "Open FAILED because it is ALREADY open.", """
-                        Do not use open() twice!
-                        Why don't you try close() before open() twice?""", true);
-                return;
+        CompletableFuture<Window2D> opened = openAsync();
+        if(SwingUtilities.isEventDispatchThread())
+            return;
+        try {
+            opened.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if(e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+    /**
+     * Open the window without waiting for its frame.
+     * If it fails, the future is completed with the exception(like AlreadyOpenException, or CannotOpenableException if the window is closed).
+     * @return Future which is completed when the window is open
+     */
+    public CompletableFuture<Window2D> openAsync() {
+        CompletableFuture<Window2D> opened = new CompletableFuture<>();
+        onFrame(frame -> {
+            try {
+                openFrame();
+                opened.complete(this);
+            } catch (Throwable e) {
+                opened.completeExceptionally(e);
+            }
+        }, () -> {
+            // A closed window has no frame anymore.
+            try {
+                throwError("0x000006", CannotOpenableException.class, "Open FAILED because the window is closed.", """
+                        A closed window cannot be opened again.
+                        Why don't you create a new window?""", false);
+            } catch (Throwable e) {
+                opened.completeExceptionally(e);
             }
-            windowStatus = WindowStatus.OPEN;
-            setup();
+        });
+        return opened;
+    }
+
+    private void openFrame() {
+        // ================================================== OPEN() ================================================== \\
+        if(windowStatus == WindowStatus.OPEN) {
+            throwError("0x000001", AlreadyOpenException.class, "Open FAILED because it is ALREADY open.", """
+                    Do not use open() twice!
+                    Why don't you try close() before open() twice?""", true);
+            return;
+        }
+        windowStatus = WindowStatus.OPEN;
+        setup();
 
-            // ================================================== Show window ================================================== \\
-            frame.setVisible(true);
-            scripts.forEach(script -> script.open(this));
+        // ================================================== Show window ================================================== \\
+        frame.setVisible(true);
+        if(canvas != null) {
+            canvas.createBufferStrategy(bufferCount);
+            strategy = canvas.getBufferStrategy();
+            BufferCapabilities capabilities = strategy.getCapabilities();
+            // Partial repaint needs the back buffer to still hold the last frame after show().
+            retainsContents = capabilities.isPageFlipping()
+                    ? capabilities.getFlipContents() == BufferCapabilities.FlipContents.COPIED
+                    : bufferCount == 2;
+        }
+        core.openScripts(this);
+        if(profiler.isEnabled())
+            profiler.register(frame.getTitle());
 
-            print("Window2D: Open is successfully!");
-        });
+        print("Window2D: Open is successfully!");
     }
 
     private void setup() {
+        // ================================================== Active Rendering ================================================== \\
+        if(activeRendering && canvas == null) {
+            canvas = new Canvas();
+            canvas.setIgnoreRepaint(true);
+            canvas.setFocusable(false);
+            frame.setIgnoreRepaint(true);
+            frame.remove(panel);
+            frame.add(canvas);
+        }
+
         // ================================================== Window Listener ================================================== \\
         frame.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent event) {
-                timer.cancel();
                 if(windowStatus == WindowStatus.OPEN) {
                     print("Window2D: WindowListener: Window closing...");
                     close(true, CloseType.NORMAL); // Window Listener
                 } else {
+                    loop.stop();
                     print("Window2D: WindowAdapter: Close queued.");
                 }
             }
 
             @Override
             public void windowDeactivated(WindowEvent e) {
+                // The releases of the keys held now go to another window.
+                input.releaseAll();
                 callEvent(new WindowDeactivateEvent(Window2D.this));
             }
 
@@ -231,46 +585,32 @@ public class Window2D implements Window {
         });
 
         // ================================================== Shutdown Hook ================================================== \\
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if(windowStatus == WindowStatus.LOADING) {
-                System.out.println("Roost: ShutdownHook: Program is closing.");
-            } else if(windowStatus == WindowStatus.OPEN) {
-                System.out.println("Roost: ShutdownHook: Program is UNEXPECTED closing.");
-                closeUnexpected();
-                System.out.println("Roost: ShutdownHook: Program is UNEXPECTED closed.");
-            }
-        }));
+        RoostRuntime runtime = this.runtime;
+        openRuntime = runtime;
+        runtime.addShutdownTask(shutdownTask);
 
-        // ================================================== Timer ================================================== \\
-        timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if(windowStatus == WindowStatus.CLOSE)
-                    System.exit(0);
-
-                if(windowStatus == WindowStatus.OPEN)
-                    newFrame(null);
-            }
-        }, 0, 1);
+        // ================================================== Frame Loop ================================================== \\
+        loop.start(runtime);
         // KEY
         frame.addKeyListener(new KeyListener() {
             @Override
             public void keyTyped(KeyEvent e) {
                 if(keyMode)
-                    callEvent(new KeyTypeEvent(Window2D.this, e.getKeyChar(), e.getKeyCode(), e.isActionKey()));
+                    key(InputQueue.KEY_TYPE, e);
             }
 
             @Override
             public void keyPressed(KeyEvent e) {
+                input.keyPressed(e.getKeyCode());
                 if(keyMode)
-                    callEvent(new KeyPressEvent(Window2D.this, e.getKeyChar(), e.getKeyCode(), e.isActionKey()));
+                    key(InputQueue.KEY_PRESS, e);
             }
 
             @Override
             public void keyReleased(KeyEvent e) {
+                input.keyReleased(e.getKeyCode());
                 if(keyMode)
-                    callEvent(new KeyReleaseEvent(Window2D.this, e.getKeyChar(), e.getKeyCode(), e.isActionKey()));
+                    key(InputQueue.KEY_RELEASE, e);
             }
         });
     }
@@ -292,8 +632,8 @@ public class Window2D implements Window {
         print("Window2D: close(): Close queued: " + closeType );
         windowStatus = WindowStatus.LOADING;
 
-        for (int i = 0; i < scripts.toArray().length; i++) {
-            if ((!scripts.get(i).closeQueue()) && cancelable) { // If closeQueue return false, It means oppose. and it will not stop.
+        for (RoostScript script : scripts.getScripts()) {
+            if ((!script.closeQueue()) && cancelable) { // If closeQueue return false, It means oppose. and it will not stop.
                 windowStatus = WindowStatus.OPEN;
                 print("Window2D: close(): Close canceled by scripts.");
                 return false;
@@ -301,16 +641,15 @@ public class Window2D implements Window {
         }
 
         print("Window2D: close(): Executing close script...");
-        for (int i = 0; i < scripts.toArray().length; i++) {
-            scripts.get(i).close(closeType);
-        }
+        core.closeScripts(closeType);
 
-        print("Window2D: close(): Timer canceling...");
-        timer.cancel();
-        timer.purge();
+        print("Window2D: close(): Frame loop stopping...");
+        loop.stop();
+        removeShutdownTask();
+        profiler.unregister();
 
         print("Window2D: close(): Closing...");
-        frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING));
+        frame.dispose();
         print("Window2D: close(): Set null...");
         frame = null;
 
@@ -326,15 +665,14 @@ public class Window2D implements Window {
      */
     public void closeUnexpected() {
         windowStatus = WindowStatus.LOADING;
-        for (int i = 0; i < scripts.toArray().length; i++) {
-            scripts.get(i).closeQueue();
+        for (RoostScript script : scripts.getScripts()) {
+            script.closeQueue();
         }
         print("Window2D: close(): Executing close script...");
-        for (int i = 0; i < scripts.toArray().length; i++) {
-            scripts.get(i).close(CloseType.UNEXPECTED);
-        }
-        timer.cancel();
-        timer.purge();
+        core.closeScripts(CloseType.UNEXPECTED);
+        loop.stop();
+        removeShutdownTask();
+        profiler.unregister();
         windowStatus = WindowStatus.CLOSE;
     }
     /**
@@ -345,6 +683,12 @@ public class Window2D implements Window {
     public boolean close(boolean cancelable) {
         return close(cancelable, CloseType.SUCCESSFULLY);
     }
+
+    private void removeShutdownTask() {
+        RoostRuntime openRuntime = this.openRuntime;
+        if(openRuntime != null)
+            openRuntime.removeShutdownTask(shutdownTask);
+    }
     /*============================== Show / Hide / Opacity ==============================*/
     /**
      * Show the window.
@@ -378,70 +722,163 @@ public class Window2D implements Window {
     /*============================== Draw frame ==============================*/
 
     /**
-     * Show new frame. It will auto run.
+     * Update the scripts and show new frame manually.
+     * The frame loop already does it by itself.
      * @return success or failed
      */
     public boolean newFrame() {
         return newFrame(null);
     }
     /**
-     * Show new frame with graphics. It will auto run.
+     * Update the scripts and show new frame with graphics manually.
+     * The frame loop already does it by itself.
      * @return success or failed
      */
     public boolean newFrame(@Nullable Graphics g) {
-        scripts.forEach(script -> script.update(windowStatus));
-        return draw(g);
+        updateScripts();
+        if(g != null)
+            return draw(g);
+        return render();
     }
 
     /**
-     * Draw structures. It runs from newFrame(Graphics) method.
-     * @param g Graphics. Probably, it will the lastGraphic cache.
+     * Render a frame.
+     * On active rendering, it draws into the BufferStrategy and shows it.
+     * Otherwise, it requests Swing to repaint the window.
      * @return success or failed.
      */
-    private boolean draw(Graphics g) {
-        if(lastGraphics == null && g == null) return false;
-        if(g == null)
-            g = lastGraphics;
-        else
-            lastGraphics = g;
-
-        for (RoostStructure structure : structures) {
-            if(structure instanceof SquareStructure squareStructure) {
-                g.drawRect(squareStructure.getLocationX(), squareStructure.getLocationY(), squareStructure.getSizeX(), squareStructure.getSizeY());
-            } else if (structure instanceof ImageStructure imageStructure) {
-                if(imageStructure.getSizeX() == -1 && imageStructure.getSizeY() == -1) {
-                    g.drawImage(imageStructure.getImage(), imageStructure.getLocationX(), imageStructure.getLocationY(), null);
-                } else {
-                    g.drawImage(imageStructure.getImage(), imageStructure.getLocationX(), imageStructure.getLocationY(), imageStructure.getSizeX(), imageStructure.getSizeY(), null);
+    private boolean render() {
+        BufferStrategy strategy = this.strategy;
+        if(strategy == null) {
+            JPanel panel = this.panel;
+            if(panel == null) return false;
+            if(!dirtyTracking) {
+                panel.repaint();
+                return true;
+            }
+            if(overlay)
+                dirtyRegion.add(OVERLAY_AREA);
+            if(dirtyRegion.drain(dirtyAreas, panel.getWidth(), panel.getHeight())) {
+                panel.repaint();
+            } else {
+                for (Rectangle area : dirtyAreas) {
+                    panel.repaint(area);
                 }
-            } else if (structure instanceof TextStructure textStructure) {
+            }
+            dirtyAreas.clear();
+            return true;
+        }
+        if(!canvas.isDisplayable()) return false;
+
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        boolean full = true;
+        if(dirtyTracking) {
+            if(overlay)
+                dirtyRegion.add(OVERLAY_AREA);
+            full = dirtyRegion.drain(dirtyAreas, width, height) || !retainsContents || width != lastWidth || height != lastHeight;
+            if(!full && dirtyAreas.isEmpty())
+                return true;
+        }
+        lastWidth = width;
+        lastHeight = height;
+
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
                 try {
-                    g.drawString(textStructure.getContent(), textStructure.getX(), textStructure.getY());
-                } catch(Exception e) {
-                    throwError("0x000005", RuntimeException.class, "An exception is occurred while drawing window(Drawing String)", """
-                            This is unknown error. We can't help you.
-                            However, since we know under what conditions this error occurred at the time,
-                            We will deliver information about it.
-                            Time: {TIME}
-                            TextStructure:""" + " " + textStructure, true);
+                    paintFrame(g, full ? null : dirtyAreas, width, height);
+                } finally {
+                    g.dispose();
                 }
-            } else {
-                System.err.println("Roost: Window2D: Unknown roost structure: " + structure.getClass().getName());
-            }
+                // If the contents are restored or lost, the whole frame has to be drawn again.
+                full = true;
+            } while(strategy.contentsRestored());
+            strategy.show();
+        } while(strategy.contentsLost());
+        dirtyAreas.clear();
+        Toolkit.getDefaultToolkit().sync();
+        endFrame(event, true);
+        return true;
+    }
+
+    /**
+     * Count the frame and commit its profile and JFR event.
+     * @param event JFR event began at the start of the frame
+     * @param active Whether the frame is drawn by active rendering
+     */
+    private void endFrame(@NotNull FrameEvent event, boolean active) {
+        JFrame frame = this.frame;
+        core.endFrame(event, frame == null ? null : frame.getTitle(), active);
+    }
+
+    /**
+     * Clear and draw the areas of the active rendering buffer.
+     * @param g Graphics of the buffer
+     * @param areas Areas to draw. null means the whole buffer.
+     */
+    private void paintFrame(Graphics g, @Nullable ArrayList<Rectangle> areas, int width, int height) {
+        if(areas == null) {
+            g.setClip(0, 0, width, height);
+            g.setColor(canvas.getBackground());
+            g.fillRect(0, 0, width, height);
+            g.setColor(canvas.getForeground());
+            draw(g);
+            if(overlay)
+                drawOverlay(g);
+            g.setClip(null);
+            return;
         }
+        for (Rectangle area : areas) {
+            g.setClip(area);
+            g.setColor(canvas.getBackground());
+            g.fillRect(area.x, area.y, area.width, area.height);
+            g.setColor(canvas.getForeground());
+            draw(g);
+            if(overlay)
+                drawOverlay(g);
+        }
+        g.setClip(null);
+    }
+
+    /**
+     * Draw structures. It runs from paintComponent, render() and newFrame(Graphics) method.
+     * @param g Graphics to draw into.
+     * @return success or failed.
+     */
+    private boolean draw(@NotNull Graphics g) {
+        scene.draw((Graphics2D) g);
         return true;
     }
+    /**
+     * Draw the profiler overlay on the top-left.
+     * @param g Graphics to draw into
+     */
+    private void drawOverlay(@NotNull Graphics g) {
+        String text = profiler.getOverlayText(System.nanoTime());
+        Color color = g.getColor();
+        g.setColor(Color.BLACK);
+        g.fillRect(OVERLAY_AREA.x, OVERLAY_AREA.y, OVERLAY_AREA.width, OVERLAY_AREA.height);
+        g.setColor(Color.WHITE);
+        g.drawString(text, OVERLAY_AREA.x + 4, OVERLAY_AREA.y + 15);
+        g.setColor(color);
+    }
     /*============================== Event ==============================*/
     /**
      * Add event listeners
      * @param eventListener Listener
      */
     public void addEventListener(@NotNull EventListener eventListener) {
-        if(eventListener.getClass().isAnonymousClass()) {
-            System.err.println("Roost: Window2D: WARNING: You are added anonymous eventListener.");
-            listeners.add(new EventObj(eventListener.getClass(), eventListener));
-        } else {
-            listeners.add(new EventObj(eventListener.getClass(), eventListener));
+        try {
+            dispatcher.register(eventListener);
+        } catch (IllegalAccessException e) {
+            throwError("0x000004-2", IllegalAccessError.class, "Cannot add the listener because Window2D CANNOT access to the method.", """
+                    Cannot resolve the method because Window2D class CANNOT access to the @EventHandler method.
+                    If you wanna solve this error, you have to add 'public' access modifier in front of Class or Method,
+                    or open the package of the listener to Roost.
+                    Hope it helps!""", windowStatus == WindowStatus.OPEN);
         }
     }
     /**
@@ -451,35 +888,7 @@ public class Window2D implements Window {
     public void callEvent(RoostEvent event) {
         if(windowStatus != WindowStatus.OPEN) throwError("0x000002", NotOpenException.class, "Cannot call event because the window is not open. (Status: " + windowStatus + ")", "Cannot call event because the window is not open.", false);
 
-        for (EventObj obj : listeners) {
-            Method[] methods = obj.clazz().getDeclaredMethods();
-            for (Method method : methods) {
-                if(method.isAnnotationPresent(EventHandler.class)) {
-                    Class<?>[] params = method.getParameterTypes();
-                    if(params.length == 1) {
-                        if(params[0] == event.getClass()) {
-                            try {
-                                method.invoke(obj.instance(), event);
-                            } catch (IllegalAccessException e) {
-                                if(obj.clazz().isAnonymousClass()) {
-                                    throwError("0x000004-1", IllegalAccessError.class, "Cannot invoke the method because Window2D CANNOT access to the method.", """
-                                            Cannot invoke the method because Window2D class CANNOT access to the @EventHandler method.
-                                            If you wanna solve this error, you have to remove anonymous.
-                                            Hope it helps!""", true);
-                                } else {
-                                    throwError("0x000004-2", IllegalAccessError.class, "Cannot invoke the method because Window2D CANNOT access to the method.", """
-                                            Cannot invoke the method because Window2D class CANNOT access to the @EventHandler method.
-                                            If you wanna solve this error, you have to add 'public' access modifier in front of Class or Method.
-                                            Hope it helps!""", true);
-                                }
-                            } catch (InvocationTargetException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        core.dispatch(event);
     }
     /*============================== DIALOG ==============================*/
     /**
@@ -503,22 +912,27 @@ public class Window2D implements Window {
      * @param errorMsg logger msg
      */
     private <EXCEPTION extends Throwable> void throwError(String errorCode, @NotNull Class<EXCEPTION> errorType, String simpleMsg, String errorMsg, boolean closeWindow) throws EXCEPTION {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                System.err.println("Roost: ERROR: " + errorMsg.replace("\n", "\nRoost: ERROR: ").replace("{TIME}", System.currentTimeMillis() + ""));
-                System.err.println("Error Code: " + errorCode);
-                if(closeWindow) {
-                    if(windowStatus != WindowStatus.OPEN) {
-                        System.err.println("==============================================================================");
-                        System.err.println("Roost: ERROR: Cannot close because it is not open!");
-                        System.err.println("Error Code: " + "0x000003");
-                        return;
-                    }
-                    close(false, CloseType.ERROR);
+        ErrorEvent event = new ErrorEvent();
+        if(event.isEnabled()) {
+            event.errorCode = errorCode;
+            event.errorType = errorType;
+            event.message = simpleMsg;
+            event.closeWindow = closeWindow;
+            event.commit();
+        }
+        runtime.reportError(() -> {
+            System.err.println("Roost: ERROR: " + errorMsg.replace("\n", "\nRoost: ERROR: ").replace("{TIME}", System.currentTimeMillis() + ""));
+            System.err.println("Error Code: " + errorCode);
+            if(closeWindow) {
+                if(windowStatus != WindowStatus.OPEN) {
+                    System.err.println("==============================================================================");
+                    System.err.println("Roost: ERROR: Cannot close because it is not open!");
+                    System.err.println("Error Code: " + "0x000003");
+                    return;
                 }
+                close(false, CloseType.ERROR);
             }
-        }, 5);
+        });
         try {
             throw errorType.getDeclaredConstructor(String.class).newInstance("Roost: ERROR: " + simpleMsg);
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
@@ -531,6 +945,83 @@ public class Window2D implements Window {
             close(false, CloseType.ERROR);
         }
     }
+    /**
+     * Run a task with the frame on the Swing thread.
+     * Before the frame is ready, the task is queued and run together with the others when it is.
+     * The task is skipped if the window is closed.
+     * @param task Task with the frame
+     */
+    private void onFrame(@NotNull Consumer<JFrame> task) {
+        onFrame(task, null);
+    }
+    /**
+     * Run a task with the frame on the Swing thread.
+     * @param task Task with the frame
+     * @param closed Task run instead if the window is closed, or null
+     */
+    private void onFrame(@NotNull Consumer<JFrame> task, @Nullable Runnable closed) {
+        synchronized (pendingFrameTasks) {
+            if(!frameReady) {
+                pendingFrameTasks.add(task);
+                return;
+            }
+        }
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = this.frame;
+            if(frame != null)
+                task.accept(frame);
+            else if(closed != null)
+                closed.run();
+        });
+    }
+    /**
+     * Call a key event now, or queue it.
+     * @param type Type of the event(InputQueue.KEY_...)
+     * @param e AWT key event
+     */
+    private void key(int type, KeyEvent e) {
+        if(inputDelivery == InputDelivery.IMMEDIATE) {
+            callEvent(keyEvent(type, e.getKeyCode(), e.getKeyChar(), e.isActionKey()));
+            return;
+        }
+        if(!inputQueue.offer(type, e.getKeyCode(), e.getKeyChar(), e.isActionKey()))
+            print("Window2D: Input queue is full. A key event is dropped.");
+    }
+    private RoostEvent keyEvent(int type, int keyCode, char keyChar, boolean actionKey) {
+        return switch (type) {
+            case InputQueue.KEY_PRESS -> new KeyPressEvent(this, keyChar, keyCode, actionKey);
+            case InputQueue.KEY_RELEASE -> new KeyReleaseEvent(this, keyChar, keyCode, actionKey);
+            default -> new KeyTypeEvent(this, keyChar, keyCode, actionKey);
+        };
+    }
+    /**
+     * Call the queued key events.
+     */
+    private void deliverInput() {
+        if(inputQueue.isEmpty())
+            return;
+        if(inputDelivery != InputDelivery.BATCH) {
+            inputQueue.drain(inputSink);
+            return;
+        }
+        // The list is reused by every batch, so the queue is drained without growing a new one.
+        inputQueue.drain(inputBatchSink);
+        try {
+            callEvent(new InputBatchEvent(this, inputBatch));
+        } finally {
+            inputBatch.clear();
+        }
+    }
+    /**
+     * Update the scripts.
+     */
+    private void updateScripts() {
+        input.beginUpdate();
+        deliverInput();
+        scripts.update(windowStatus);
+        // Publish here too, so the staged changes do not pile up while no frame is drawn(e.g. the window is hidden).
+        scene.publish();
+    }
     /**
      * Output Roost messages to System.out.
      * @param msg Message to send
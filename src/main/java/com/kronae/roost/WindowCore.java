@@ -0,0 +1,110 @@
+package com.kronae.roost;
+
+import com.kronae.roost.custom.RoostScript;
+import com.kronae.roost.event.EventDispatcher;
+import com.kronae.roost.event.RoostEvent;
+import com.kronae.roost.jfr.DispatchEvent;
+import com.kronae.roost.jfr.FrameEvent;
+import com.kronae.roost.jfr.ScriptEvent;
+import com.kronae.roost.profile.FrameProfiler;
+import com.kronae.roost.render.RendererRegistry;
+import com.kronae.roost.render.Scene;
+import com.kronae.roost.status.CloseType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parts every window has in common: the scripts, the scene, the events and the profiler,
+ * and the way they are measured(profiler and JFR). Window2D and OffscreenWindow share it.
+ */
+final class WindowCore {
+    final EventDispatcher dispatcher;
+    final FrameProfiler profiler;
+    final ScriptScheduler scripts;
+    final Scene scene;
+    private final AtomicLong frameNumber = new AtomicLong();
+
+    WindowCore() {
+        dispatcher = new EventDispatcher();
+        profiler = new FrameProfiler();
+        scripts = new ScriptScheduler(profiler);
+        // Renderers registered into a window draw only that window.
+        scene = new Scene(new RendererRegistry(RendererRegistry.getDefault()), profiler);
+    }
+
+    /*============================== Scripts ==============================*/
+    /**
+     * Call open() of every script. A Window2D is given to open(Window2D), other windows to open(Window).
+     * @param window Window which is opened
+     */
+    void openScripts(@NotNull Window window) {
+        for (RoostScript script : scripts.getScripts()) {
+            ScriptEvent event = new ScriptEvent();
+            event.begin();
+            // The overload is chosen at compile time, so pick it from the class of the window.
+            if(window instanceof Window2D window2D)
+                script.open(window2D);
+            else
+                script.open(window);
+            event.commit(script, ScriptEvent.OPEN);
+        }
+    }
+    /**
+     * Call close() of every script.
+     * @param closeType The type of close.
+     */
+    void closeScripts(@NotNull CloseType closeType) {
+        for (RoostScript script : scripts.getScripts()) {
+            ScriptEvent event = new ScriptEvent();
+            event.begin();
+            script.close(closeType);
+            event.commit(script, ScriptEvent.CLOSE);
+        }
+    }
+
+    /*============================== Event ==============================*/
+    /**
+     * Dispatch the event to the listeners, measuring it.
+     * @param event RoostEvent
+     */
+    void dispatch(@NotNull RoostEvent event) {
+        DispatchEvent dispatch = new DispatchEvent();
+        dispatch.begin();
+        long start = profiler.isEnabled() ? System.nanoTime() : 0;
+        try {
+            dispatcher.dispatch(event);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+        if(start != 0)
+            profiler.recordEvent(System.nanoTime() - start);
+        dispatch.end();
+        if(dispatch.shouldCommit()) {
+            dispatch.eventClass = event.getClass();
+            dispatch.listenerCount = dispatcher.count(event.getClass());
+            dispatch.commit();
+        }
+    }
+
+    /*============================== Frame ==============================*/
+    /**
+     * Count the frame and commit its profile and JFR event.
+     * @param event JFR event began at the start of the frame
+     * @param window Name of the window
+     * @param active Whether the frame is drawn by active rendering
+     */
+    void endFrame(@NotNull FrameEvent event, @Nullable String window, boolean active) {
+        long number = frameNumber.incrementAndGet();
+        profiler.recordFrame(System.nanoTime(), scene.size());
+        event.end();
+        if(event.shouldCommit()) {
+            event.window = window;
+            event.frameNumber = number;
+            event.structureCount = scene.size();
+            event.activeRendering = active;
+            event.commit();
+        }
+    }
+}
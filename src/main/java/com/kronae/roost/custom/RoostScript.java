@@ -1,12 +1,55 @@
 package com.kronae.roost.custom;
 
+import com.kronae.roost.Window;
 import com.kronae.roost.Window2D;
 import com.kronae.roost.status.CloseType;
 import com.kronae.roost.status.WindowStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface RoostScript {
     void open(Window2D window);
+    /**
+     * Called when a window other than Window2D(like OffscreenWindow) is opened.
+     * @param window Opened window
+     */
+    default void open(Window window) {
+    }
     void update(WindowStatus status);
     boolean closeQueue();
     void close(CloseType type);
+
+    /**
+     * Called right before a frame is drawn.
+     * Updates run at a fixed rate, so use alpha to interpolate between the last update and the next one.
+     * @param alpha How far(0.0 ~ 1.0) the time is between the last update and the next one.
+     */
+    default void interpolate(float alpha) {
+    }
+
+    /**
+     * Whether update() can run at the same time as the other scripts.
+     * Only used when the window updates scripts in parallel(ScriptScheduler.setParallel(true)).
+     * @return Whether the script is independent
+     */
+    default boolean isIndependent() {
+        return false;
+    }
+    /**
+     * Scripts whose update() has to be finished before the update() of this script.
+     * Only used when the window updates scripts in parallel.
+     * @return Classes of the scripts this script depends on
+     */
+    default @NotNull Collection<Class<? extends RoostScript>> getDependencies() {
+        return List.of();
+    }
+    /**
+     * Time update() should take at most. Longer updates are reported to the overrun listener of the ScriptScheduler.
+     * @return Budget in nanoseconds. 0 means the default budget of the window.
+     */
+    default long getUpdateBudgetNanos() {
+        return 0;
+    }
 }
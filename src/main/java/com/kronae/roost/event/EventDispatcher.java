@@ -0,0 +1,120 @@
+package com.kronae.roost.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dispatch table of @EventHandler methods, keyed by event class.
+ * Handlers are resolved once when a listener is registered,
+ * so calling an event is a single map lookup and direct calls.
+ * A dispatcher generated by EventHandlerProcessor is used when one exists, otherwise reflection.
+ */
+public class EventDispatcher {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, RoostEvent.class);
+
+    private static final ClassValue<GeneratedDispatcher<?>> GENERATED = new ClassValue<>() {
+        @Override
+        protected GeneratedDispatcher<?> computeValue(Class<?> type) {
+            return findGenerated(type);
+        }
+    };
+
+    private volatile Map<Class<?>, EventInvoker[]> table = Map.of();
+
+    /**
+     * Resolve every @EventHandler method of the listener and add them into the table.
+     * @param listener Listener
+     * @throws IllegalAccessException If a handler method cannot be accessed
+     */
+    public synchronized void register(@NotNull Object listener) throws IllegalAccessException {
+        HashMap<Class<?>, EventInvoker[]> next = new HashMap<>(table);
+        GeneratedDispatcher<?> generated = GENERATED.get(listener.getClass());
+        if(generated != null)
+            registerGenerated(generated, listener, next);
+        else
+            registerReflective(listener, next);
+        table = next;
+    }
+
+    private static <L> void registerGenerated(GeneratedDispatcher<L> generated, Object listener, Map<Class<?>, EventInvoker[]> table) {
+        generated.register(generated.listenerType().cast(listener), (eventClass, invoker) -> add(table, eventClass, invoker));
+    }
+
+    private static void registerReflective(Object listener, Map<Class<?>, EventInvoker[]> table) throws IllegalAccessException {
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            if(!method.isAnnotationPresent(EventHandler.class))
+                continue;
+            Class<?>[] params = method.getParameterTypes();
+            if(params.length != 1 || !RoostEvent.class.isAssignableFrom(params[0]))
+                continue;
+
+            // Anonymous and non-public listeners are reachable as long as their module is open to us.
+            method.trySetAccessible();
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if(!Modifier.isStatic(method.getModifiers()))
+                handle = handle.bindTo(listener);
+            add(table, params[0], handle.asType(INVOKER_TYPE)::invokeExact);
+        }
+    }
+
+    /**
+     * Call every handler of the event's class.
+     * @param event RoostEvent
+     * @throws Throwable Anything the handlers throw
+     */
+    public void dispatch(@NotNull RoostEvent event) throws Throwable {
+        EventInvoker[] invokers = table.get(event.getClass());
+        if(invokers == null)
+            return;
+        for (EventInvoker invoker : invokers) {
+            invoker.invoke(event);
+        }
+    }
+
+    /**
+     * Get the number of handlers of the event class.
+     * @param eventClass Class of the event
+     * @return Number of handlers
+     */
+    public int count(@NotNull Class<? extends RoostEvent> eventClass) {
+        EventInvoker[] invokers = table.get(eventClass);
+        return invokers == null ? 0 : invokers.length;
+    }
+
+    private static GeneratedDispatcher<?> findGenerated(Class<?> type) {
+        if(type.isAnonymousClass() || type.isLocalClass())
+            return null;
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        name = name.substring(0, dot + 1) + name.substring(dot + 1).replace('$', '_') + "_RoostDispatcher";
+        try {
+            Class<?> clazz = Class.forName(name, true, type.getClassLoader());
+            if(!GeneratedDispatcher.class.isAssignableFrom(clazz))
+                return null;
+            GeneratedDispatcher<?> generated = (GeneratedDispatcher<?>) clazz.getDeclaredConstructor().newInstance();
+            return generated.listenerType() == type ? generated : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static void add(Map<Class<?>, EventInvoker[]> table, Class<?> eventClass, EventInvoker invoker) {
+        EventInvoker[] old = table.get(eventClass);
+        if(old == null) {
+            table.put(eventClass, new EventInvoker[] { invoker });
+        } else {
+            EventInvoker[] invokers = Arrays.copyOf(old, old.length + 1);
+            invokers[old.length] = invoker;
+            table.put(eventClass, invokers);
+        }
+    }
+}
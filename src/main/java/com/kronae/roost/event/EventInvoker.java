@@ -0,0 +1,13 @@
+package com.kronae.roost.event;
+
+import org.jetbrains.annotations.NotNull;
+
+@FunctionalInterface
+public interface EventInvoker {
+    /**
+     * Invoke a resolved @EventHandler with the event.
+     * @param event RoostEvent
+     * @throws Throwable Anything the handler throws
+     */
+    void invoke(@NotNull RoostEvent event) throws Throwable;
+}
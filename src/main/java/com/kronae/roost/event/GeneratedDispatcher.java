@@ -0,0 +1,25 @@
+package com.kronae.roost.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Dispatcher generated at compile time by EventHandlerProcessor.
+ * The class is named {@code <Listener>_RoostDispatcher} and placed in the listener's package.
+ * @param <L> Type of the listener
+ */
+public interface GeneratedDispatcher<L> {
+    /**
+     * Get the listener class this dispatcher was generated for.
+     * @return Listener class
+     */
+    @NotNull Class<L> listenerType();
+
+    /**
+     * Add the handlers of the listener into the table.
+     * @param listener Listener
+     * @param table Table to add (event class, invoker) into
+     */
+    void register(@NotNull L listener, @NotNull BiConsumer<Class<? extends RoostEvent>, EventInvoker> table);
+}
@@ -0,0 +1,26 @@
+package com.kronae.roost.event;
+
+import com.kronae.roost.Window;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Key events of a frame, called once before the scripts are updated in InputDelivery.BATCH.
+ */
+public class InputBatchEvent extends RoostEvent {
+    private final @NotNull List<RoostEvent> events;
+    public InputBatchEvent(@NotNull Window window, @NotNull List<RoostEvent> events) {
+        super(window);
+        this.events = Collections.unmodifiableList(events);
+    }
+    /**
+     * Get the key events(KeyPressEvent, KeyReleaseEvent, KeyTypeEvent) in the order they happened.
+     * The window reuses the list for the next batch, so copy it to keep the events after the event is called.
+     * @return Key events
+     */
+    public @NotNull List<RoostEvent> getEvents() {
+        return events;
+    }
+}
@@ -1,4 +1,10 @@
 package com.kronae.roost.exception;
 
 public class NotOpenException extends RoostRuntimeException {
+    public NotOpenException() {
+        super();
+    }
+    public NotOpenException(String msg) {
+        super(msg);
+    }
 }
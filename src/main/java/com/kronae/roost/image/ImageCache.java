@@ -0,0 +1,273 @@
+package com.kronae.roost.image;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Decoded images shared by source(URL, path or stream id).
+ * Images are converted to the format of the screen once, so drawing them takes the fast path.
+ * The least recently used images are evicted when the cache is over its byte budget.
+ * An image is decoded once even if many threads miss it at the same time; they all get the same instance.
+ */
+public class ImageCache {
+    private static final ImageCache DEFAULT = new ImageCache(256L * 1024 * 1024);
+
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Decode the image.
+         * @return Decoded image. null if the format is not supported.
+         * @throws IOException If the image cannot be read
+         */
+        BufferedImage load() throws IOException;
+    }
+
+    private final LinkedHashMap<Object, BufferedImage> images = new LinkedHashMap<>(16, 0.75F, true);
+    private final HashMap<Object, CompletableFuture<BufferedImage>> loading = new HashMap<>();
+    private final CopyOnWriteArrayList<Consumer<BufferedImage>> evictionListeners = new CopyOnWriteArrayList<>();
+    private long budget;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor
+     * @param budget Maximum bytes of the cached images
+     */
+    public ImageCache(long budget) {
+        setBudget(budget);
+    }
+
+    /**
+     * Get the cache shared by the structures. (Budget: 256MB)
+     * @return Default cache
+     */
+    public static ImageCache getDefault() {
+        return DEFAULT;
+    }
+
+    /*============================== Load ==============================*/
+    /**
+     * Load the image of the URL.
+     * @param url URL of the image
+     * @return Image. null if the format is not supported.
+     * @throws IOException If the image cannot be read
+     */
+    public BufferedImage load(@NotNull URL url) throws IOException {
+        // URL.equals resolves host names, so the string form is the key.
+        return get("url:" + url.toExternalForm(), () -> ImageIO.read(url));
+    }
+    /**
+     * Load the image of the file.
+     * @param path Path of the image
+     * @return Image. null if the format is not supported.
+     * @throws IOException If the image cannot be read
+     */
+    public BufferedImage load(@NotNull Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        return get(key, () -> ImageIO.read(key.toFile()));
+    }
+    /**
+     * Load the image of the stream. The stream is read only if the id is not cached.
+     * @param id Id of the stream, which is the same for the same image
+     * @param stream Stream of the image
+     * @return Image. null if the format is not supported.
+     * @throws IOException If the image cannot be read
+     */
+    public BufferedImage load(@NotNull String id, @NotNull ImageInputStream stream) throws IOException {
+        return get("stream:" + id, () -> ImageIO.read(stream));
+    }
+    /**
+     * Get the image of the key, or load and cache it.
+     * @param key Key of the image
+     * @param loader Loader which decodes the image
+     * @return Image. null if the format is not supported.
+     * @throws IOException If the image cannot be read
+     */
+    public BufferedImage get(@NotNull Object key, @NotNull Loader loader) throws IOException {
+        CompletableFuture<BufferedImage> decoding;
+        CompletableFuture<BufferedImage> future = null;
+        synchronized (this) {
+            BufferedImage image = images.get(key);
+            if(image != null) {
+                hits++;
+                return image;
+            }
+            decoding = loading.get(key);
+            if(decoding != null) {
+                hits++;
+            } else {
+                misses++;
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+            }
+        }
+        // Another thread is decoding it: wait for the same instance.
+        if(future == null)
+            return await(decoding);
+
+        BufferedImage image;
+        try {
+            image = loader.load();
+            if(image != null)
+                image = toCompatible(image);
+        } catch (IOException | RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(key);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            if(image != null)
+                put(key, image);
+            loading.remove(key);
+        }
+        future.complete(image);
+        return image;
+    }
+
+    private static BufferedImage await(CompletableFuture<BufferedImage> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException exception) throw new IOException(exception.getMessage(), exception);
+            if(cause instanceof RuntimeException exception) throw exception;
+            if(cause instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    /*============================== Set / Get ==============================*/
+    /**
+     * Set the maximum bytes of the cached images.
+     * @param budget Budget in bytes
+     */
+    public synchronized void setBudget(long budget) {
+        if(budget < 0) throw new IllegalArgumentException("budget must not be negative: " + budget);
+        this.budget = budget;
+        evict();
+    }
+    public synchronized long getBudget() {
+        return budget;
+    }
+    /**
+     * Get the bytes of the cached images.
+     * @return Bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+    public synchronized long getHits() {
+        return hits;
+    }
+    public synchronized long getMisses() {
+        return misses;
+    }
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    public synchronized int size() {
+        return images.size();
+    }
+    /**
+     * Add the listener called with each image which leaves the cache(evicted, replaced or cleared).
+     * Caches of copies of the images use it to drop the copies with them.
+     * @param listener Listener
+     */
+    public void addEvictionListener(@NotNull Consumer<BufferedImage> listener) {
+        evictionListeners.add(listener);
+    }
+    /**
+     * Remove every image.
+     */
+    public synchronized void clear() {
+        for (BufferedImage image : images.values()) {
+            evicted(image);
+        }
+        images.clear();
+        bytes = 0;
+    }
+
+    /*============================== Compatible ==============================*/
+    /**
+     * Convert the image to the format of the screen, if it is not already.
+     * The result is a managed image, which Java2D can keep in video memory.
+     * It returns the image as is on a headless environment.
+     * @param image Image
+     * @return Compatible image
+     */
+    public static @NotNull BufferedImage toCompatible(@NotNull BufferedImage image) {
+        if(GraphicsEnvironment.isHeadless())
+            return image;
+        GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        int transparency = image.getColorModel().getTransparency();
+        if(image.getColorModel().equals(configuration.getColorModel(transparency)))
+            return image;
+
+        BufferedImage compatible = configuration.createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
+        Graphics2D g = compatible.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return compatible;
+    }
+    /**
+     * Get the bytes the image takes.
+     * @param image Image
+     * @return Bytes
+     */
+    public static long sizeOf(@NotNull BufferedImage image) {
+        int bytesPerPixel = (image.getColorModel().getPixelSize() + 7) / 8;
+        return (long) image.getWidth() * image.getHeight() * bytesPerPixel;
+    }
+
+    /*============================== PRIVATE ==============================*/
+    private synchronized void put(Object key, BufferedImage image) {
+        long size = sizeOf(image);
+        if(size > budget)
+            return;
+        BufferedImage old = images.put(key, image);
+        if(old != null) {
+            bytes -= sizeOf(old);
+            if(old != image)
+                evicted(old);
+        }
+        bytes += size;
+        evict();
+    }
+    private void evict() {
+        Iterator<Map.Entry<Object, BufferedImage>> iterator = images.entrySet().iterator();
+        while(bytes > budget && iterator.hasNext()) {
+            BufferedImage image = iterator.next().getValue();
+            bytes -= sizeOf(image);
+            iterator.remove();
+            evictions++;
+            evicted(image);
+        }
+    }
+    private void evicted(BufferedImage image) {
+        for (Consumer<BufferedImage> listener : evictionListeners) {
+            listener.accept(image);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kronae.roost.image;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decode images on a bounded pool of worker threads.
+ * Tasks run in the order they are submitted, except that visible ones go first.
+ */
+public class ImageLoader {
+    private static final ImageLoader DEFAULT = new ImageLoader(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    public final class Task implements Runnable, Comparable<Task> {
+        private final @NotNull ImageCache.Loader loader;
+        private final @NotNull CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+        private final long sequence = sequences.getAndIncrement();
+        private volatile boolean visible;
+
+        private Task(@NotNull ImageCache.Loader loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Get the future which is completed with the decoded image.
+         * @return Future of the image
+         */
+        public @NotNull CompletableFuture<BufferedImage> future() {
+            return future;
+        }
+
+        /**
+         * Tell that the image is visible now, so it is decoded before the others.
+         */
+        public void prioritize() {
+            if(visible || future.isDone())
+                return;
+            // The priority must not change while the task is in the queue.
+            if(executor.getQueue().remove(this)) {
+                visible = true;
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if(future.isDone())
+                return;
+            try {
+                future.complete(loader.load());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(@NotNull Task other) {
+            if(visible != other.visible)
+                return visible ? -1 : 1;
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequences = new AtomicLong();
+
+    /**
+     * Constructor
+     * @param threads Number of worker threads
+     */
+    public ImageLoader(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Roost-ImageLoader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the loader shared by the structures. (Threads: up to 4)
+     * @return Default loader
+     */
+    public static ImageLoader getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Decode an image on the worker threads.
+     * @param loader Loader which decodes the image
+     * @return Task of the image
+     */
+    public @NotNull Task submit(@NotNull ImageCache.Loader loader) {
+        Task task = new Task(loader);
+        executor.execute(task);
+        return task;
+    }
+}
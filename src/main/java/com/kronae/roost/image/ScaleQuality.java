@@ -0,0 +1,32 @@
+package com.kronae.roost.image;
+
+import java.awt.*;
+
+public enum ScaleQuality {
+    /**
+     * Nearest neighbor. Fastest, and pixels stay sharp.
+     */
+    NEAREST(RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR),
+    /**
+     * Bilinear interpolation.
+     */
+    BILINEAR(RenderingHints.VALUE_INTERPOLATION_BILINEAR),
+    /**
+     * Bicubic interpolation. Smoothest, and slowest.
+     */
+    BICUBIC(RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+
+    private final Object hint;
+
+    ScaleQuality(Object hint) {
+        this.hint = hint;
+    }
+
+    /**
+     * Get the value of RenderingHints.KEY_INTERPOLATION.
+     * @return Hint value
+     */
+    public Object getHint() {
+        return hint;
+    }
+}
@@ -0,0 +1,223 @@
+package com.kronae.roost.image;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scaled copies of images keyed by (image, width, height, quality).
+ * An image is resampled once and reused by every structure drawing it at that size,
+ * instead of being resampled on every frame.
+ * The least recently used copies are evicted when the cache is over its byte budget.
+ * <p>
+ * The copies do not keep their source images alive. They are dropped when the source is collected,
+ * or when it is evicted from the ImageCache the cache is attached to.
+ */
+public class ScaledImageCache {
+    private static final ScaledImageCache DEFAULT = new ScaledImageCache(64L * 1024 * 1024);
+
+    static {
+        DEFAULT.attach(ImageCache.getDefault());
+    }
+
+    /**
+     * Key of a copy. It refers to its source weakly, and compares it by identity.
+     */
+    private static final class Key extends WeakReference<BufferedImage> {
+        private final int hash;
+        private final int width;
+        private final int height;
+        private final ScaleQuality quality;
+
+        Key(BufferedImage image, int width, int height, ScaleQuality quality, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.hash = ((System.identityHashCode(image) * 31 + width) * 31 + height) * 31 + quality.hashCode();
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key other)) return false;
+            BufferedImage image = get();
+            // A collected source is only equal to its own key.
+            return image != null && image == other.get() && width == other.width && height == other.height && quality == other.quality;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final LinkedHashMap<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75F, true);
+    private final ReferenceQueue<BufferedImage> collected = new ReferenceQueue<>();
+    private long budget;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor
+     * @param budget Maximum bytes of the cached images
+     */
+    public ScaledImageCache(long budget) {
+        setBudget(budget);
+    }
+
+    /**
+     * Get the cache shared by the structures. (Budget: 64MB)
+     * @return Default cache
+     */
+    public static ScaledImageCache getDefault() {
+        return DEFAULT;
+    }
+    /**
+     * Drop the copies of the images which are evicted from the image cache. The default cache is attached to the default image cache.
+     * @param imageCache Image cache of the source images
+     */
+    public void attach(@NotNull ImageCache imageCache) {
+        imageCache.addEvictionListener(this::remove);
+    }
+
+    /**
+     * Get the image scaled to the size, or scale and cache it.
+     * @param image Source image
+     * @param width Width to scale to
+     * @param height Height to scale to
+     * @param quality Interpolation used to scale
+     * @return Scaled image
+     */
+    public @NotNull BufferedImage get(@NotNull BufferedImage image, int width, int height, @NotNull ScaleQuality quality) {
+        if(image.getWidth() == width && image.getHeight() == height)
+            return image;
+        Key key = new Key(image, width, height, quality, collected);
+        synchronized (this) {
+            expunge();
+            BufferedImage scaled = images.get(key);
+            if(scaled != null) {
+                hits++;
+                return scaled;
+            }
+            misses++;
+        }
+
+        BufferedImage scaled = scale(image, width, height, quality);
+        put(key, scaled);
+        return scaled;
+    }
+
+    /**
+     * Scale the image.
+     * @param image Source image
+     * @param width Width to scale to
+     * @param height Height to scale to
+     * @param quality Interpolation used to scale
+     * @return New scaled image
+     */
+    public static @NotNull BufferedImage scale(@NotNull BufferedImage image, int width, int height, @NotNull ScaleQuality quality) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, quality.getHint());
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return ImageCache.toCompatible(scaled);
+    }
+
+    /*============================== Set / Get ==============================*/
+    /**
+     * Set the maximum bytes of the cached images.
+     * @param budget Budget in bytes
+     */
+    public synchronized void setBudget(long budget) {
+        if(budget < 0) throw new IllegalArgumentException("budget must not be negative: " + budget);
+        this.budget = budget;
+        evict();
+    }
+    public synchronized long getBudget() {
+        return budget;
+    }
+    public synchronized long getBytes() {
+        expunge();
+        return bytes;
+    }
+    public synchronized long getHits() {
+        return hits;
+    }
+    public synchronized long getMisses() {
+        return misses;
+    }
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    public synchronized int size() {
+        expunge();
+        return images.size();
+    }
+    /**
+     * Remove every copy of the source image.
+     * @param image Source image
+     */
+    public synchronized void remove(@NotNull BufferedImage image) {
+        Iterator<Map.Entry<Key, BufferedImage>> iterator = images.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<Key, BufferedImage> entry = iterator.next();
+            if(entry.getKey().get() == image) {
+                bytes -= ImageCache.sizeOf(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+    /**
+     * Remove every scaled image.
+     */
+    public synchronized void clear() {
+        images.clear();
+        bytes = 0;
+    }
+
+    /*============================== PRIVATE ==============================*/
+    private synchronized void put(Key key, BufferedImage image) {
+        expunge();
+        long size = ImageCache.sizeOf(image);
+        if(size > budget)
+            return;
+        BufferedImage old = images.put(key, image);
+        if(old != null)
+            bytes -= ImageCache.sizeOf(old);
+        bytes += size;
+        evict();
+    }
+    /**
+     * Remove the copies whose sources are collected.
+     */
+    private void expunge() {
+        Object reference;
+        while((reference = collected.poll()) != null) {
+            BufferedImage image = images.remove((Key) reference);
+            if(image != null)
+                bytes -= ImageCache.sizeOf(image);
+        }
+    }
+    private void evict() {
+        Iterator<Map.Entry<Key, BufferedImage>> iterator = images.entrySet().iterator();
+        while(bytes > budget && iterator.hasNext()) {
+            bytes -= ImageCache.sizeOf(iterator.next().getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.kronae.roost.input;
+
+public enum InputDelivery {
+    /**
+     * Each key event is called on the Swing thread as soon as it happens
+     */
+    IMMEDIATE,
+    /**
+     * Key events are queued and called one by one, in order, before the scripts are updated
+     */
+    EVENTS,
+    /**
+     * Key events are queued and called together as one InputBatchEvent before the scripts are updated
+     */
+    BATCH;
+}
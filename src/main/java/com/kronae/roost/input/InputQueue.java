@@ -0,0 +1,135 @@
+package com.kronae.roost.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated ring buffer of key events, written by one thread(the Swing thread) and drained by another(the frame loop).
+ * <p>
+ * Writing only stores a few numbers, so the Swing thread spends almost no time in Roost.
+ * Draining delivers the events in order and drops the key repeats of keys already pressed in the same drain.
+ * When the buffer is full, new events are dropped and counted. The keys of InputState are never dropped.
+ */
+public class InputQueue {
+    public static final int KEY_PRESS = 0;
+    public static final int KEY_RELEASE = 1;
+    public static final int KEY_TYPE = 2;
+
+    private static final int KEYS = 1 << 16;
+
+    /**
+     * Receiver of the drained events.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * Called for each event, in the order they are offered.
+         * @param type KEY_PRESS, KEY_RELEASE or KEY_TYPE
+         * @param keyCode Key code
+         * @param keyChar Key character
+         * @param actionKey Whether the key is an action key
+         */
+        void key(int type, int keyCode, char keyChar, boolean actionKey);
+    }
+
+    private final int mask;
+    private final int[] types;
+    private final int[] keyCodes;
+    private final char[] keyChars;
+    private final boolean[] actionKeys;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final long[] pressed = new long[KEYS >>> 6];
+
+    /**
+     * Constructor
+     * @param capacity Number of events the buffer holds. It is rounded up to a power of two.
+     */
+    public InputQueue(int capacity) {
+        if(capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        types = new int[size];
+        keyCodes = new int[size];
+        keyChars = new char[size];
+        actionKeys = new boolean[size];
+    }
+
+    /**
+     * Add an event. Call it from a single thread.
+     * @param type KEY_PRESS, KEY_RELEASE or KEY_TYPE
+     * @param keyCode Key code
+     * @param keyChar Key character
+     * @param actionKey Whether the key is an action key
+     * @return Whether it is added. false means the buffer is full.
+     */
+    public boolean offer(int type, int keyCode, char keyChar, boolean actionKey) {
+        long t = tail.get();
+        if(t - head.get() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) t & mask;
+        types[slot] = type;
+        keyCodes[slot] = keyCode;
+        keyChars[slot] = keyChar;
+        actionKeys[slot] = actionKey;
+        // Publishes the slot to the thread which drains.
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Deliver every event in the buffer, in order. Call it from one thread at a time.
+     * A press of a key which is already pressed in this drain(a key repeat) is dropped.
+     * @param sink Receiver of the events
+     * @return Number of events delivered
+     */
+    public int drain(Sink sink) {
+        long h = head.get();
+        long t = tail.get();
+        if(h == t)
+            return 0;
+        int delivered = 0;
+        long i = h;
+        try {
+            for (; i < t; i++) {
+                int slot = (int) i & mask;
+                int type = types[slot];
+                int keyCode = keyCodes[slot];
+                if(keyCode >= 0 && keyCode < KEYS) {
+                    long bit = 1L << keyCode;
+                    if(type == KEY_PRESS) {
+                        if((pressed[keyCode >>> 6] & bit) != 0) continue;
+                        pressed[keyCode >>> 6] |= bit;
+                    } else if(type == KEY_RELEASE) {
+                        pressed[keyCode >>> 6] &= ~bit;
+                    }
+                }
+                sink.key(type, keyCode, keyChars[slot], actionKeys[slot]);
+                delivered++;
+            }
+        } finally {
+            // Forget the presses, so the first repeat of the next drain is delivered.
+            for (long j = h; j < t; j++) {
+                int keyCode = keyCodes[(int) j & mask];
+                if(keyCode >= 0 && keyCode < KEYS)
+                    pressed[keyCode >>> 6] = 0;
+            }
+            // Frees the slots for offer(). If the sink threw, the rest is delivered on the next drain.
+            head.lazySet(Math.min(i + 1, t));
+        }
+        return delivered;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+    /**
+     * Get the number of events dropped because the buffer was full.
+     * @return Dropped events
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
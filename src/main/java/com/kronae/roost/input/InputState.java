@@ -0,0 +1,127 @@
+package com.kronae.roost.input;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keys which are down right now, and the keys pressed or released since the last update of the scripts.
+ * The window writes it from its key listener, and scripts read it in update() without events.
+ * <p>
+ * Keys are AWT key codes(KeyEvent.VK_...) below 65536. Other codes are ignored.
+ * Writing and reading never allocate and never take a lock.
+ * The edges(wasPressed(), wasReleased()) advance once per update, not per rendered frame:
+ * a key pressed between two updates is pressed in exactly one update, even if several updates run for one frame.
+ * A key pressed and released between two updates is both pressed and released in that update, but not down.
+ */
+public class InputState {
+    private static final int KEYS = 1 << 16;
+    private static final int WORDS = KEYS >>> 6;
+
+    private final AtomicLongArray down = new AtomicLongArray(WORDS);
+    private final AtomicLongArray pressedSince = new AtomicLongArray(WORDS);
+    private final AtomicLongArray releasedSince = new AtomicLongArray(WORDS);
+    /**
+     * A bit for each word of pressedSince and releasedSince which may have a bit, so beginUpdate() skips the others.
+     */
+    private final AtomicLongArray changedWords = new AtomicLongArray(WORDS >>> 6);
+    private final long[] pressed = new long[WORDS];
+    private final long[] released = new long[WORDS];
+    private final int[] edgeWords = new int[WORDS];
+    private int edgeWordCount;
+
+    /*============================== Read ==============================*/
+    /**
+     * Check whether the key is down right now.
+     * @param keyCode Key code
+     * @return Whether the key is down
+     */
+    public boolean isDown(int keyCode) {
+        return valid(keyCode) && (down.get(keyCode >>> 6) & (1L << keyCode)) != 0;
+    }
+    /**
+     * Check whether the key was pressed since the last update. Key repeats do not count.
+     * @param keyCode Key code
+     * @return Whether the key was pressed
+     */
+    public boolean wasPressed(int keyCode) {
+        return valid(keyCode) && (pressed[keyCode >>> 6] & (1L << keyCode)) != 0;
+    }
+    /**
+     * Check whether the key was released since the last update.
+     * @param keyCode Key code
+     * @return Whether the key was released
+     */
+    public boolean wasReleased(int keyCode) {
+        return valid(keyCode) && (released[keyCode >>> 6] & (1L << keyCode)) != 0;
+    }
+
+    private static boolean valid(int keyCode) {
+        return keyCode >= 0 && keyCode < KEYS;
+    }
+
+    /*============================== Write ==============================*/
+    /**
+     * Tell that the key is pressed. It may be called from any thread.
+     * @param keyCode Key code
+     */
+    public void keyPressed(int keyCode) {
+        if(!valid(keyCode)) return;
+        int word = keyCode >>> 6;
+        long bit = 1L << keyCode;
+        long old = down.getAndAccumulate(word, bit, (a, b) -> a | b);
+        if((old & bit) == 0)
+            edge(pressedSince, word, bit);
+    }
+    /**
+     * Tell that the key is released. It may be called from any thread.
+     * @param keyCode Key code
+     */
+    public void keyReleased(int keyCode) {
+        if(!valid(keyCode)) return;
+        int word = keyCode >>> 6;
+        long bit = 1L << keyCode;
+        long old = down.getAndAccumulate(word, ~bit, (a, b) -> a & b);
+        if((old & bit) != 0)
+            edge(releasedSince, word, bit);
+    }
+    /**
+     * Release every key which is down, like when the window loses the focus and misses the releases.
+     */
+    public void releaseAll() {
+        for (int word = 0; word < WORDS; word++) {
+            if(down.get(word) == 0) continue;
+            long old = down.getAndSet(word, 0);
+            if(old != 0)
+                edge(releasedSince, word, old);
+        }
+    }
+
+    private void edge(AtomicLongArray since, int word, long bits) {
+        since.getAndAccumulate(word, bits, (a, b) -> a | b);
+        // Marked after the edge, so beginUpdate() never clears the mark of an edge it has not taken.
+        changedWords.getAndAccumulate(word >>> 6, 1L << word, (a, b) -> a | b);
+    }
+
+    /*============================== Update ==============================*/
+    /**
+     * Start a new update: the keys pressed or released since the last call become the ones of this update.
+     * The window calls it before every update of the scripts, on the thread which updates them.
+     */
+    public void beginUpdate() {
+        for (int i = 0; i < edgeWordCount; i++) {
+            pressed[edgeWords[i]] = 0;
+            released[edgeWords[i]] = 0;
+        }
+        edgeWordCount = 0;
+        for (int summary = 0; summary < changedWords.length(); summary++) {
+            if(changedWords.get(summary) == 0) continue;
+            long words = changedWords.getAndSet(summary, 0);
+            while(words != 0) {
+                int word = (summary << 6) + Long.numberOfTrailingZeros(words);
+                words &= words - 1;
+                pressed[word] = pressedSince.getAndSet(word, 0);
+                released[word] = releasedSince.getAndSet(word, 0);
+                edgeWords[edgeWordCount++] = word;
+            }
+        }
+    }
+}
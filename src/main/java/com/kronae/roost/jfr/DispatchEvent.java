@@ -0,0 +1,19 @@
+package com.kronae.roost.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of a RoostEvent dispatched by Window.callEvent().
+ */
+@Name("com.kronae.roost.Dispatch")
+@Label("Roost Event Dispatch")
+@Category({"Roost", "Event"})
+@Description("A RoostEvent dispatched to the listeners")
+@Enabled(false)
+@StackTrace(false)
+public class DispatchEvent extends Event {
+    @Label("Event Class")
+    public Class<?> eventClass;
+    @Label("Listener Count")
+    public int listenerCount;
+}
@@ -0,0 +1,22 @@
+package com.kronae.roost.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of a Roost error thrown by the window.
+ */
+@Name("com.kronae.roost.Error")
+@Label("Roost Error")
+@Category({"Roost", "Error"})
+@Description("An error thrown by a Roost window")
+@Enabled(false)
+public class ErrorEvent extends Event {
+    @Label("Error Code")
+    public String errorCode;
+    @Label("Error Type")
+    public Class<?> errorType;
+    @Label("Message")
+    public String message;
+    @Label("Close Window")
+    public boolean closeWindow;
+}
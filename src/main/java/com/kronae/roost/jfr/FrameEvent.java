@@ -0,0 +1,23 @@
+package com.kronae.roost.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of a frame drawn by a window. Its duration is from the start to the end of the frame.
+ */
+@Name("com.kronae.roost.Frame")
+@Label("Roost Frame")
+@Category({"Roost", "Rendering"})
+@Description("A frame drawn by a Roost window")
+@Enabled(false)
+@StackTrace(false)
+public class FrameEvent extends Event {
+    @Label("Window")
+    public String window;
+    @Label("Frame Number")
+    public long frameNumber;
+    @Label("Structure Count")
+    public int structureCount;
+    @Label("Active Rendering")
+    public boolean activeRendering;
+}
@@ -0,0 +1,38 @@
+package com.kronae.roost.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * JFR event of open(), update() or close() of a RoostScript.
+ */
+@Name("com.kronae.roost.Script")
+@Label("Roost Script")
+@Category({"Roost", "Script"})
+@Description("A lifecycle call of a RoostScript")
+@Enabled(false)
+@StackTrace(false)
+public class ScriptEvent extends Event {
+    public static final String OPEN = "open";
+    public static final String UPDATE = "update";
+    public static final String CLOSE = "close";
+
+    @Label("Script Class")
+    public Class<?> scriptClass;
+    @Label("Phase")
+    public String phase;
+
+    /**
+     * End the event and commit it if it is enabled.
+     * @param script Called script
+     * @param phase open, update or close
+     */
+    public void commit(@NotNull Object script, String phase) {
+        end();
+        if(shouldCommit()) {
+            this.scriptClass = script.getClass();
+            this.phase = phase;
+            commit();
+        }
+    }
+}
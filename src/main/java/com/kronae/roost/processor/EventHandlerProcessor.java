@@ -0,0 +1,148 @@
+package com.kronae.roost.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Generate a GeneratedDispatcher for each EventListener with @EventHandler methods.
+ * Window2D picks it up when the listener is added, and falls back to reflection otherwise.
+ */
+public class EventHandlerProcessor extends AbstractProcessor {
+    private static final String EVENT_HANDLER = "com.kronae.roost.event.EventHandler";
+    private static final String EVENT_LISTENER = "com.kronae.roost.EventListener";
+    private static final String ROOST_EVENT = "com.kronae.roost.event.RoostEvent";
+    private static final String SUFFIX = "_RoostDispatcher";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(EVENT_HANDLER);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement handler = elements.getTypeElement(EVENT_HANDLER);
+        TypeElement listener = elements.getTypeElement(EVENT_LISTENER);
+        TypeElement event = elements.getTypeElement(ROOST_EVENT);
+        if(handler == null || listener == null || event == null)
+            return false;
+
+        // Group handler methods by declaring class, in declaration order.
+        LinkedHashMap<TypeElement, ArrayList<ExecutableElement>> classes = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(handler)) {
+            if(element.getKind() != ElementKind.METHOD)
+                continue;
+            classes.computeIfAbsent((TypeElement) element.getEnclosingElement(), type -> new ArrayList<>()).add((ExecutableElement) element);
+        }
+
+        for (var entry : classes.entrySet()) {
+            TypeElement type = entry.getKey();
+            if(!types.isAssignable(types.erasure(type.asType()), listener.asType()))
+                continue;
+            if(!canGenerate(type, entry.getValue()))
+                continue;
+            try {
+                generate(type, entry.getValue(), event.asType());
+            } catch (FilerException e) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "Roost: Dispatcher already generated: " + e.getMessage(), type);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Roost: Cannot generate dispatcher: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the generated class can reach the listener and all of its handlers.
+     * If not, the listener is left to reflection.
+     */
+    private boolean canGenerate(TypeElement type, ArrayList<ExecutableElement> methods) {
+        if(!type.getTypeParameters().isEmpty())
+            return false;
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if(e.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+        }
+        for (ExecutableElement method : methods) {
+            if(method.getModifiers().contains(Modifier.PRIVATE)) {
+                messager.printMessage(Diagnostic.Kind.WARNING, "Roost: Private @EventHandler method. Dispatcher is not generated, reflection is used instead.", method);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type, ArrayList<ExecutableElement> methods, TypeMirror event) throws IOException {
+        PackageElement pkg = elements.getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + SUFFIX;
+        String listenerName = type.getQualifiedName().toString();
+
+        StringBuilder body = new StringBuilder();
+        for (ExecutableElement method : methods) {
+            if(method.getParameters().size() != 1)
+                continue;
+            TypeMirror param = types.erasure(method.getParameters().get(0).asType());
+            if(!types.isAssignable(param, event))
+                continue;
+            String owner = method.getModifiers().contains(Modifier.STATIC) ? listenerName : "listener";
+            body.append("        table.accept(").append(param).append(".class, event -> ")
+                    .append(owner).append('.').append(method.getSimpleName()).append("((").append(param).append(") event));\n");
+        }
+
+        try (Writer writer = filer.createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + simpleName, type).openWriter()) {
+            if(!packageName.isEmpty())
+                writer.write("package " + packageName + ";\n\n");
+            writer.write("@javax.annotation.processing.Generated(\"" + EventHandlerProcessor.class.getName() + "\")\n");
+            writer.write("public final class " + simpleName + " implements com.kronae.roost.event.GeneratedDispatcher<" + listenerName + "> {\n");
+            writer.write("    @Override\n");
+            writer.write("    public Class<" + listenerName + "> listenerType() {\n");
+            writer.write("        return " + listenerName + ".class;\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public void register(" + listenerName + " listener, java.util.function.BiConsumer<Class<? extends com.kronae.roost.event.RoostEvent>, com.kronae.roost.event.EventInvoker> table) {\n");
+            writer.write(body.toString());
+            writer.write("    }\n");
+            writer.write("}\n");
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.kronae.roost.profile;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Frame time measurement of a window.
+ * Frame times go into a preallocated ring buffer, and the percentiles are computed only when they are read.
+ * When it is disabled, every record method returns at the first check.
+ */
+public class FrameProfiler implements FrameProfilerMXBean {
+    private static final int CAPACITY = 1024;
+    private static final long OVERLAY_INTERVAL = 500_000_000L;
+
+    private volatile boolean enabled;
+
+    // Ring buffer of the frame ends, and the frame times(the time between frame ends).
+    private final long[] frameEnds = new long[CAPACITY];
+    private final long[] frameTimes = new long[CAPACITY];
+    private final long[] sorted = new long[CAPACITY];
+    private int head;
+    private int count;
+    private long frameCount;
+    private int structureCount;
+    private int drawnStructureCount;
+    private int drawnInFrame;
+
+    // Accumulators: { total nanos, calls }
+    private final IdentityHashMap<Object, long[]> scripts = new IdentityHashMap<>();
+    private final HashMap<Class<?>, long[]> draws = new HashMap<>();
+    private long eventNanos;
+    private long eventCount;
+
+    private String overlayText = "";
+    private long overlayTime;
+
+    private ObjectName objectName;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /*============================== Record ==============================*/
+    /**
+     * Record an update of the script.
+     * @param script Script
+     * @param nanos Time the update took
+     */
+    public void recordScript(@NotNull Object script, long nanos) {
+        if(!enabled) return;
+        synchronized (this) {
+            long[] total = scripts.get(script);
+            if(total == null)
+                scripts.put(script, total = new long[2]);
+            total[0] += nanos;
+            total[1]++;
+        }
+    }
+    /**
+     * Record a batch of structures drawn.
+     * @param type Class of the structures
+     * @param nanos Time the batch took
+     * @param structures Number of structures in the batch
+     */
+    public void recordDraw(@NotNull Class<?> type, long nanos, int structures) {
+        if(!enabled) return;
+        synchronized (this) {
+            long[] total = draws.get(type);
+            if(total == null)
+                draws.put(type, total = new long[2]);
+            total[0] += nanos;
+            total[1]++;
+            drawnInFrame += structures;
+        }
+    }
+    /**
+     * Record an event dispatch.
+     * @param nanos Time the dispatch took
+     */
+    public void recordEvent(long nanos) {
+        if(!enabled) return;
+        synchronized (this) {
+            eventNanos += nanos;
+            eventCount++;
+        }
+    }
+    /**
+     * Record the end of a frame.
+     * @param now Current time(System.nanoTime())
+     * @param structures Number of structures in the window
+     */
+    public void recordFrame(long now, int structures) {
+        if(!enabled) return;
+        synchronized (this) {
+            int last = (head + CAPACITY - 1) % CAPACITY;
+            frameTimes[head] = count == 0 ? 0 : now - frameEnds[last];
+            frameEnds[head] = now;
+            head = (head + 1) % CAPACITY;
+            if(count < CAPACITY)
+                count++;
+            frameCount++;
+            structureCount = structures;
+            drawnStructureCount = drawnInFrame;
+            drawnInFrame = 0;
+        }
+    }
+
+    /*============================== MXBean ==============================*/
+    @Override
+    public synchronized double getFps() {
+        if(count < 2)
+            return 0;
+        long last = frameEnds[(head + CAPACITY - 1) % CAPACITY];
+        int frames = 0;
+        for (int i = 1; i <= count; i++) {
+            if(last - frameEnds[(head + CAPACITY - i) % CAPACITY] > 1_000_000_000L)
+                break;
+            frames++;
+        }
+        return frames;
+    }
+    @Override
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+    @Override
+    public double getFrameTimeP50Millis() {
+        return percentile(0.50) / 1_000_000.0;
+    }
+    @Override
+    public double getFrameTimeP95Millis() {
+        return percentile(0.95) / 1_000_000.0;
+    }
+    @Override
+    public double getFrameTimeP99Millis() {
+        return percentile(0.99) / 1_000_000.0;
+    }
+    @Override
+    public synchronized int getStructureCount() {
+        return structureCount;
+    }
+    @Override
+    public synchronized int getDrawnStructureCount() {
+        return drawnStructureCount;
+    }
+    @Override
+    public synchronized Map<String, Long> getScriptUpdateNanos() {
+        LinkedHashMap<String, Long> result = new LinkedHashMap<>();
+        scripts.forEach((script, total) -> result.put(script.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(script)), total[0] / Math.max(total[1], 1)));
+        return result;
+    }
+    @Override
+    public synchronized Map<String, Long> getDrawNanos() {
+        LinkedHashMap<String, Long> result = new LinkedHashMap<>();
+        draws.forEach((type, total) -> result.put(type.getName(), total[0] / Math.max(frameCount, 1)));
+        return result;
+    }
+    @Override
+    public synchronized long getEventDispatchNanos() {
+        return eventNanos / Math.max(eventCount, 1);
+    }
+    @Override
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+    @Override
+    public synchronized void reset() {
+        head = 0;
+        count = 0;
+        frameCount = 0;
+        drawnInFrame = 0;
+        scripts.clear();
+        draws.clear();
+        eventNanos = 0;
+        eventCount = 0;
+    }
+
+    /*============================== Overlay ==============================*/
+    /**
+     * Get the text of the on-screen overlay. It is refreshed twice a second.
+     * @param now Current time(System.nanoTime())
+     * @return Overlay text
+     */
+    public @NotNull String getOverlayText(long now) {
+        if(now - overlayTime > OVERLAY_INTERVAL) {
+            overlayTime = now;
+            overlayText = String.format("FPS %.0f | p50 %.1fms p95 %.1fms p99 %.1fms | structures %d/%d",
+                    getFps(), getFrameTimeP50Millis(), getFrameTimeP95Millis(), getFrameTimeP99Millis(), getDrawnStructureCount(), getStructureCount());
+        }
+        return overlayText;
+    }
+
+    /*============================== JMX ==============================*/
+    /**
+     * Register the profiler into the platform MBeanServer.
+     * @param name Name of the window
+     */
+    public synchronized void register(@NotNull String name) {
+        if(objectName != null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName("com.kronae.roost:type=FrameProfiler,name=" + ObjectName.quote(name));
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                // Another window has the same name.
+                objectName = new ObjectName("com.kronae.roost:type=FrameProfiler,name=" + ObjectName.quote(name + "@" + Integer.toHexString(System.identityHashCode(this))));
+                server.registerMBean(this, objectName);
+            }
+            this.objectName = objectName;
+        } catch (JMException e) {
+            System.err.println("Roost: FrameProfiler: Cannot register MBean: " + e.getMessage());
+        }
+    }
+    /**
+     * Unregister the profiler from the platform MBeanServer.
+     */
+    public synchronized void unregister() {
+        if(objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("Roost: FrameProfiler: Cannot unregister MBean: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    /*============================== PRIVATE ==============================*/
+    private synchronized long percentile(double p) {
+        if(count == 0)
+            return 0;
+        System.arraycopy(frameTimes, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)];
+    }
+}
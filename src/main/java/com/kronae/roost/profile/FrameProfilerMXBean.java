@@ -0,0 +1,53 @@
+package com.kronae.roost.profile;
+
+import java.util.Map;
+
+/**
+ * JMX view of a FrameProfiler.
+ * Registered as com.kronae.roost:type=FrameProfiler,name=(title of the window).
+ */
+public interface FrameProfilerMXBean {
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+
+    /**
+     * Get the frames drawn in the last second.
+     * @return Frames per second
+     */
+    double getFps();
+    long getFrameCount();
+    double getFrameTimeP50Millis();
+    double getFrameTimeP95Millis();
+    double getFrameTimeP99Millis();
+    /**
+     * Get the number of structures in the window at the last frame.
+     * @return Number of structures
+     */
+    int getStructureCount();
+    /**
+     * Get the number of structures drawn at the last frame.
+     * @return Number of drawn structures
+     */
+    int getDrawnStructureCount();
+    /**
+     * Get the average nanoseconds of an update, per script.
+     * @return Script name to nanoseconds
+     */
+    Map<String, Long> getScriptUpdateNanos();
+    /**
+     * Get the average nanoseconds spent drawing each structure type, per frame.
+     * @return Structure class name to nanoseconds
+     */
+    Map<String, Long> getDrawNanos();
+    /**
+     * Get the average nanoseconds of an event dispatch.
+     * @return Nanoseconds
+     */
+    long getEventDispatchNanos();
+    long getEventCount();
+
+    /**
+     * Clear every measurement.
+     */
+    void reset();
+}
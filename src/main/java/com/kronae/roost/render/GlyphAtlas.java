@@ -0,0 +1,335 @@
+package com.kronae.roost.render;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Glyphs of a font rasterized once into one alpha mask.
+ * A string is drawn as a run of blits from the mask, tinted with its color: no shaping, no kerning and no allocation.
+ * The mask does not depend on the color, so a font takes one 512x512 image however many colors it is drawn in.
+ * Printable ASCII is rasterized up front, other characters when they are first drawn,
+ * until the image is full. After that, missing characters are drawn as '?'.
+ * <p>
+ * Looking up placed glyphs takes no lock, so tiles of a TileCompositor draw atlas text at the same time.
+ * Only a new character takes the lock of the atlas while it is rasterized.
+ */
+public class GlyphAtlas {
+    private static final int SIZE = 512;
+    private static final int MAX_ATLASES = 16;
+    private static final LinkedHashMap<Key, GlyphAtlas> ATLASES = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, GlyphAtlas> eldest) {
+            return size() > MAX_ATLASES;
+        }
+    };
+    /**
+     * Image each thread tints the glyphs of a string in, before it is drawn.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private record Key(Font font, boolean antialias) {
+    }
+
+    /**
+     * Placed glyphs. It is never changed after it is published: a new glyph publishes a new copy.
+     * Slot 0 is '?', the fallback.
+     */
+    private static final class Glyphs {
+        private final int[] atlasX;
+        private final int[] atlasY;
+        private final int[] width;
+        private final int[] advance;
+        private final int[] offsetX;
+        // char -> slot + 1. Latin-1 is looked up directly, others in an open addressing table.
+        private final int[] latin;
+        private final int[] keys;
+        private final int[] values;
+        private final int others;
+
+        private Glyphs(int[] atlasX, int[] atlasY, int[] width, int[] advance, int[] offsetX, int[] latin, int[] keys, int[] values, int others) {
+            this.atlasX = atlasX;
+            this.atlasY = atlasY;
+            this.width = width;
+            this.advance = advance;
+            this.offsetX = offsetX;
+            this.latin = latin;
+            this.keys = keys;
+            this.values = values;
+            this.others = others;
+        }
+
+        /**
+         * Find the slot of the character.
+         * @return Slot, or -1 if the character is not placed
+         */
+        private int find(char c) {
+            if(c < 256)
+                return latin[c] - 1;
+            int mask = keys.length - 1;
+            for (int i = c & mask; ; i = (i + 1) & mask) {
+                if(keys[i] == 0)
+                    return -1;
+                if(keys[i] == c)
+                    return values[i] - 1;
+            }
+        }
+
+        /**
+         * Copy it with the character put in the slot. A slot of -1 is a new glyph placed at x, y.
+         */
+        private Glyphs with(char c, int slot, int x, int y, int w, int glyphAdvance, int left) {
+            int[] atlasX = this.atlasX, atlasY = this.atlasY, width = this.width, advance = this.advance, offsetX = this.offsetX;
+            if(slot < 0) {
+                slot = atlasX.length;
+                atlasX = Arrays.copyOf(atlasX, slot + 1);
+                atlasY = Arrays.copyOf(atlasY, slot + 1);
+                width = Arrays.copyOf(width, slot + 1);
+                advance = Arrays.copyOf(advance, slot + 1);
+                offsetX = Arrays.copyOf(offsetX, slot + 1);
+                atlasX[slot] = x;
+                atlasY[slot] = y;
+                width[slot] = w;
+                advance[slot] = glyphAdvance;
+                offsetX[slot] = left;
+            }
+            if(c < 256) {
+                int[] latin = this.latin.clone();
+                latin[c] = slot + 1;
+                return new Glyphs(atlasX, atlasY, width, advance, offsetX, latin, keys, values, others);
+            }
+            int[] keys = this.keys, values = this.values;
+            if((others + 1) * 2 > keys.length) {
+                keys = new int[this.keys.length * 2];
+                values = new int[this.keys.length * 2];
+                for (int i = 0; i < this.keys.length; i++) {
+                    if(this.keys[i] != 0)
+                        insert(keys, values, this.keys[i], this.values[i]);
+                }
+            } else {
+                keys = keys.clone();
+                values = values.clone();
+            }
+            insert(keys, values, c, slot + 1);
+            return new Glyphs(atlasX, atlasY, width, advance, offsetX, latin, keys, values, others + 1);
+        }
+
+        private static void insert(int[] keys, int[] values, int key, int value) {
+            int mask = keys.length - 1;
+            int i = key & mask;
+            while(keys[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = value;
+        }
+    }
+
+    private static final class Scratch {
+        private BufferedImage image = new BufferedImage(256, 32, BufferedImage.TYPE_INT_ARGB_PRE);
+        private Graphics2D g = image.createGraphics();
+
+        private void ensure(int width, int height) {
+            if(image.getWidth() >= width && image.getHeight() >= height)
+                return;
+            g.dispose();
+            image = new BufferedImage(Math.max(width, image.getWidth() * 2), Math.max(height, image.getHeight()), BufferedImage.TYPE_INT_ARGB_PRE);
+            g = image.createGraphics();
+        }
+    }
+
+    private final @NotNull Font font;
+    private final boolean antialias;
+    private final FontRenderContext context;
+    private final BufferedImage image;
+    private final int ascent;
+    private final int lineHeight;
+    private final int monoAdvance;
+    private volatile Glyphs glyphs;
+
+    // Pen of the next glyph. Guarded by the lock of the atlas.
+    private int penX;
+    private int penY;
+    private boolean full;
+
+    /**
+     * Get the atlas of the font, or rasterize one.
+     * Up to 16 atlases are kept, and the least recently used one is dropped.
+     * @param font Font
+     * @param antialias Whether the glyphs are antialiased
+     * @return Atlas
+     */
+    public static @NotNull GlyphAtlas get(@NotNull Font font, boolean antialias) {
+        synchronized (ATLASES) {
+            return ATLASES.computeIfAbsent(new Key(font, antialias), key -> new GlyphAtlas(font, antialias));
+        }
+    }
+
+    private GlyphAtlas(@NotNull Font font, boolean antialias) {
+        this.font = font;
+        this.antialias = antialias;
+        this.context = new FontRenderContext(null, antialias, false);
+        this.image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        Graphics2D g = image.createGraphics();
+        FontMetrics metrics = g.getFontMetrics(font);
+        g.dispose();
+        this.ascent = metrics.getAscent();
+        this.lineHeight = metrics.getAscent() + metrics.getDescent();
+
+        int[] none = new int[0];
+        glyphs = new Glyphs(none, none, none, none, none, new int[256], new int[64], new int[64], 0);
+        place('?');
+        for (char c = ' '; c <= '~'; c++) {
+            place(c);
+        }
+        int widest = 0;
+        for (int glyphAdvance : glyphs.advance) {
+            widest = Math.max(widest, glyphAdvance);
+        }
+        this.monoAdvance = widest;
+    }
+
+    /*============================== Get ==============================*/
+    public @NotNull Font getFont() {
+        return font;
+    }
+    public boolean isAntialias() {
+        return antialias;
+    }
+    public int getAscent() {
+        return ascent;
+    }
+    public int getLineHeight() {
+        return lineHeight;
+    }
+    /**
+     * Get the width of the string.
+     * @param chars Characters
+     * @param length Number of characters
+     * @param monospace Whether every character takes the widest advance
+     * @return Width in pixels
+     */
+    public int width(char @NotNull [] chars, int length, boolean monospace) {
+        if(monospace)
+            return length * monoAdvance;
+        Glyphs glyphs = this.glyphs;
+        int width = 0;
+        for (int i = 0; i < length; i++) {
+            int slot = glyphs.find(chars[i]);
+            if(slot < 0) {
+                glyphs = place(chars[i]);
+                slot = glyphs.find(chars[i]);
+            }
+            width += glyphs.advance[slot];
+        }
+        return width;
+    }
+
+    /*============================== Draw ==============================*/
+    /**
+     * Draw the string.
+     * @param g Graphics to draw into
+     * @param color Color of the glyphs
+     * @param chars Characters
+     * @param length Number of characters
+     * @param x X of the baseline start
+     * @param y Y of the baseline
+     * @param monospace Whether every character takes the widest advance
+     */
+    public void draw(@NotNull Graphics2D g, @NotNull Color color, char @NotNull [] chars, int length, int x, int y, boolean monospace) {
+        if(length == 0)
+            return;
+        // Place every character first, so the loops below see the same glyphs.
+        Glyphs glyphs = this.glyphs;
+        for (int i = 0; i < length; i++) {
+            if(glyphs.find(chars[i]) < 0)
+                glyphs = place(chars[i]);
+        }
+        // Glyphs may reach out of their advance, so find the area they cover.
+        int left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+        for (int i = 0, pen = 0; i < length; i++) {
+            int slot = glyphs.find(chars[i]);
+            int dx = monospace ? pen + (monoAdvance - glyphs.advance[slot]) / 2 + glyphs.offsetX[slot] : pen + glyphs.offsetX[slot];
+            left = Math.min(left, dx);
+            right = Math.max(right, dx + glyphs.width[slot]);
+            pen += monospace ? monoAdvance : glyphs.advance[slot];
+        }
+        int width = right - left;
+        if(width <= 0)
+            return;
+
+        // The mask is white: copy the glyphs into the scratch image, then keep their alpha with the color.
+        Scratch scratch = SCRATCH.get();
+        scratch.ensure(width, lineHeight);
+        Graphics2D sg = scratch.g;
+        sg.setComposite(AlphaComposite.Clear);
+        sg.fillRect(0, 0, width, lineHeight);
+        sg.setComposite(AlphaComposite.SrcOver);
+        for (int i = 0, pen = 0; i < length; i++) {
+            int slot = glyphs.find(chars[i]);
+            int w = glyphs.width[slot];
+            if(w > 0) {
+                int dx = (monospace ? pen + (monoAdvance - glyphs.advance[slot]) / 2 + glyphs.offsetX[slot] : pen + glyphs.offsetX[slot]) - left;
+                int ax = glyphs.atlasX[slot], ay = glyphs.atlasY[slot];
+                sg.drawImage(image, dx, 0, dx + w, lineHeight, ax, ay, ax + w, ay + lineHeight, null);
+            }
+            pen += monospace ? monoAdvance : glyphs.advance[slot];
+        }
+        sg.setComposite(AlphaComposite.SrcIn);
+        sg.setColor(color);
+        sg.fillRect(0, 0, width, lineHeight);
+
+        int top = y - ascent;
+        g.drawImage(scratch.image, x + left, top, x + left + width, top + lineHeight, 0, 0, width, lineHeight, null);
+    }
+
+    /*============================== PRIVATE ==============================*/
+    /**
+     * Rasterize the character if it is not placed yet. If the image is full, it is drawn as '?'.
+     * @return Glyphs with the character
+     */
+    private synchronized Glyphs place(char c) {
+        Glyphs glyphs = this.glyphs;
+        if(glyphs.find(c) >= 0)
+            return glyphs;
+        if(!full) {
+            GlyphVector vector = font.createGlyphVector(context, new char[] { c });
+            Rectangle bounds = vector.getGlyphPixelBounds(0, context, 0, 0);
+            int glyphAdvance = Math.round(vector.getGlyphMetrics(0).getAdvance());
+            int left = Math.min(bounds.x, 0);
+            int w = Math.max(bounds.x + bounds.width, glyphAdvance) - left;
+
+            if(penX + w > SIZE) {
+                penX = 0;
+                penY += lineHeight;
+            }
+            if(penY + lineHeight > SIZE || w > SIZE) {
+                full = true;
+            } else {
+                Graphics2D g = image.createGraphics();
+                try {
+                    g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialias ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+                    g.setClip(penX, penY, w, lineHeight);
+                    g.setColor(Color.WHITE);
+                    g.drawGlyphVector(vector, penX - left, penY + ascent);
+                } finally {
+                    g.dispose();
+                }
+                glyphs = glyphs.with(c, -1, penX, penY, w, glyphAdvance, left);
+                penX += w + 1;
+                this.glyphs = glyphs;
+                return glyphs;
+            }
+        }
+        // Remember the fallback, so the character is never looked for under the lock again.
+        glyphs = glyphs.with(c, 0, 0, 0, 0, 0, 0);
+        this.glyphs = glyphs;
+        return glyphs;
+    }
+}
@@ -0,0 +1,130 @@
+package com.kronae.roost.render;
+
+import com.kronae.roost.structure.RoostStructure;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renderers keyed by structure class.
+ * The renderer of a class is resolved once and cached:
+ * the renderer registered for the class or its nearest super type(classes and every interface they extend),
+ * otherwise the renderer of the parent registry, otherwise the structure's own render(Graphics2D).
+ * <p>
+ * Each window has its own registry whose parent is the default one, so a renderer registered into a window
+ * only draws that window, and a renderer registered into the default registry draws every window.
+ */
+public class RendererRegistry {
+    private static final RendererRegistry DEFAULT = new RendererRegistry();
+
+    private static final StructureRenderer<RoostStructure> SELF = (g, structure) -> structure.render(g);
+    private static final StructureRenderer<RoostStructure> NONE = (g, structure) -> {};
+    /**
+     * Resolved when nothing is registered here, so the parent is asked every time and its changes are seen.
+     */
+    private static final StructureRenderer<RoostStructure> PARENT = (g, structure) -> {};
+
+    private final @Nullable RendererRegistry parent;
+    private final ConcurrentHashMap<Class<?>, StructureRenderer<?>> registered = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, StructureRenderer<RoostStructure>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor of a registry without a parent.
+     */
+    public RendererRegistry() {
+        this(null);
+    }
+    /**
+     * Constructor
+     * @param parent Registry asked for the classes which have no renderer here. null means none.
+     */
+    public RendererRegistry(@Nullable RendererRegistry parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Get the registry shared by the windows.
+     * @return Default registry
+     */
+    public static RendererRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Register the renderer of the structure class and its subclasses.
+     * @param type Class of the structure
+     * @param renderer Renderer
+     * @param <T> Type of the structure
+     */
+    public <T extends RoostStructure> void register(@NotNull Class<T> type, @NotNull StructureRenderer<? super T> renderer) {
+        registered.put(type, renderer);
+        resolved.clear();
+    }
+    /**
+     * Unregister the renderer of the structure class.
+     * @param type Class of the structure
+     */
+    public void unregister(@NotNull Class<? extends RoostStructure> type) {
+        registered.remove(type);
+        resolved.clear();
+    }
+
+    /**
+     * Get the renderer of the structure class.
+     * @param type Class of the structure
+     * @return Renderer. It does nothing if the structure cannot be drawn.
+     */
+    public @NotNull StructureRenderer<RoostStructure> get(@NotNull Class<? extends RoostStructure> type) {
+        StructureRenderer<RoostStructure> renderer = resolved.get(type);
+        if(renderer == null)
+            renderer = resolved.computeIfAbsent(type, this::resolve);
+        if(renderer == PARENT)
+            return parent.get(type);
+        return renderer;
+    }
+    /**
+     * Get the registry asked for the classes which have no renderer here.
+     * @return Parent registry, or null
+     */
+    public @Nullable RendererRegistry getParent() {
+        return parent;
+    }
+
+    private StructureRenderer<RoostStructure> resolve(Class<?> type) {
+        HashSet<Class<?>> visited = new HashSet<>();
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            StructureRenderer<RoostStructure> renderer = find(clazz, visited);
+            if(renderer != null)
+                return renderer;
+        }
+        if(parent != null)
+            return PARENT;
+        try {
+            if(type.getMethod("render", Graphics2D.class).getDeclaringClass() != RoostStructure.class)
+                return SELF;
+        } catch (NoSuchMethodException ignored) {
+        }
+        System.err.println("Roost: RendererRegistry: Unknown roost structure: " + type.getName());
+        return NONE;
+    }
+    /**
+     * Find the renderer of the type, or of the interfaces it extends(depth first).
+     */
+    @SuppressWarnings("unchecked")
+    private @Nullable StructureRenderer<RoostStructure> find(Class<?> type, HashSet<Class<?>> visited) {
+        if(!visited.add(type))
+            return null;
+        StructureRenderer<?> renderer = registered.get(type);
+        if(renderer != null)
+            return (StructureRenderer<RoostStructure>) renderer;
+        for (Class<?> face : type.getInterfaces()) {
+            StructureRenderer<RoostStructure> found = find(face, visited);
+            if(found != null)
+                return found;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,336 @@
+package com.kronae.roost.render;
+
+import com.kronae.roost.profile.FrameProfiler;
+import com.kronae.roost.structure.RoostStructure;
+import com.kronae.roost.structure.SpatialGrid;
+import com.kronae.roost.structure.StructureChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Structures of a window and the way they are drawn.
+ * It keeps the structures in the order they are drawn, culls them with a SpatialGrid
+ * and draws them in batches with the renderers of a RendererRegistry.
+ * It does not need a screen, so it can draw into any Graphics.
+ * <p>
+ * Any thread may add, remove or change structures. The changes are staged in a queue(changes of one structure only once),
+ * and publish() applies them and publishes an immutable snapshot of the structures, so nobody sees a half-applied change.
+ * A window publishes after every update of its scripts, and draw() publishes before drawing.
+ * getStructures(), find() and the draws see the structures of the last publish. find() and the draws read the grid
+ * under a read lock, which publish() only takes for writing when there are changes to apply.
+ */
+public class Scene {
+    private static final RoostStructure[] NO_STRUCTURES = new RoostStructure[0];
+
+    private enum Op { ADD, REMOVE, UPDATE }
+    private record Change(@NotNull Op op, @NotNull RoostStructure structure) {
+    }
+
+    private final Set<RoostStructure> members;
+    private final ConcurrentLinkedQueue<Change> staged;
+    private final Set<RoostStructure> pendingUpdates;
+    private final Object publishLock;
+    private final ArrayList<RoostStructure> structures;
+    private final IdentityHashMap<RoostStructure, Boolean> removed;
+    private final SpatialGrid index;
+    private final ReentrantReadWriteLock indexLock;
+    private volatile RoostStructure[] snapshot = NO_STRUCTURES;
+    private final RendererRegistry renderers;
+    private final FrameProfiler profiler;
+    private final StructureChangeListener changeListener;
+    private volatile StructureChangeListener observer;
+    private volatile BiConsumer<RoostStructure, Exception> errorHandler;
+
+    /**
+     * Constructor with a renderer registry of its own, which falls back to the default one.
+     */
+    public Scene() {
+        this(new RendererRegistry(RendererRegistry.getDefault()), null);
+    }
+    /**
+     * Constructor
+     * @param renderers Renderer registry to draw the structures with
+     * @param profiler Profiler which measures the draws. null means no measuring.
+     */
+    public Scene(@NotNull RendererRegistry renderers, @Nullable FrameProfiler profiler) {
+        this.members = ConcurrentHashMap.newKeySet();
+        this.staged = new ConcurrentLinkedQueue<>();
+        this.pendingUpdates = ConcurrentHashMap.newKeySet();
+        this.publishLock = new Object();
+        this.structures = new ArrayList<>();
+        this.removed = new IdentityHashMap<>();
+        this.index = new SpatialGrid();
+        this.indexLock = new ReentrantReadWriteLock();
+        this.renderers = renderers;
+        this.profiler = profiler;
+        this.changeListener = new StructureChangeListener() {
+            @Override
+            public void structureChanged(@NotNull RoostStructure structure, @Nullable Rectangle oldBounds) {
+                // A structure changed many times before a publish is updated in the grid once.
+                if(pendingUpdates.add(structure))
+                    staged.offer(new Change(Op.UPDATE, structure));
+                StructureChangeListener observer = Scene.this.observer;
+                if(observer != null)
+                    observer.structureChanged(structure, oldBounds);
+            }
+
+            @Override
+            public void areaChanged(@NotNull RoostStructure structure, @NotNull Rectangle area) {
+                StructureChangeListener observer = Scene.this.observer;
+                if(observer != null)
+                    observer.areaChanged(structure, area);
+            }
+        };
+    }
+
+    /*============================== Structures ==============================*/
+    /**
+     * Add structure into the scene. It is drawn after the structures already added, from the next publish.
+     * @param structure Roost structure
+     */
+    public void add(@NotNull RoostStructure structure) {
+        // The member and its change are staged together, so a REMOVE is never queued before its ADD.
+        synchronized (staged) {
+            if(!members.add(structure))
+                return;
+            structure.addChangeListener(changeListener);
+            staged.offer(new Change(Op.ADD, structure));
+        }
+    }
+    /**
+     * Remove structure from the scene. It is no longer drawn from the next publish.
+     * @param structure Roost structure
+     * @return Whether the structure was in the scene
+     */
+    public boolean remove(@NotNull RoostStructure structure) {
+        synchronized (staged) {
+            if(!members.remove(structure))
+                return false;
+            structure.removeChangeListener(changeListener);
+            staged.offer(new Change(Op.REMOVE, structure));
+            return true;
+        }
+    }
+    /**
+     * Get the number of structures in the scene, including the ones which are not published yet.
+     * @return Number of structures
+     */
+    public int size() {
+        return members.size();
+    }
+    /**
+     * Get the structures of the last publish, in the order they are drawn.
+     * @return Unmodifiable snapshot of the structures
+     */
+    public @NotNull List<RoostStructure> getStructures() {
+        return Collections.unmodifiableList(Arrays.asList(snapshot));
+    }
+    /**
+     * Find the structures of the last publish containing the point, in the order they are drawn.
+     * Structures without bounds are never found.
+     * @param x X of the point
+     * @param y Y of the point
+     * @return Structures at the point
+     */
+    public @NotNull List<RoostStructure> find(int x, int y) {
+        ArrayList<RoostStructure> found = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            index.query(x, y, found);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return found;
+    }
+    /**
+     * Find the structures of the last publish intersecting the area, in the order they are drawn.
+     * Structures without bounds are never found.
+     * @param area Area to find
+     * @return Structures in the area
+     */
+    public @NotNull List<RoostStructure> find(@NotNull Rectangle area) {
+        ArrayList<RoostStructure> found = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            index.query(area, false, found);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return found;
+    }
+    /**
+     * Get the renderer registry the scene draws structures with.
+     * @return Renderer registry
+     */
+    public @NotNull RendererRegistry getRenderers() {
+        return renderers;
+    }
+    /**
+     * Set the listener called after a structure in the scene is changed.
+     * It is called on the thread which changed the structure.
+     * @param observer Listener, or null
+     */
+    public void setChangeListener(@Nullable StructureChangeListener observer) {
+        this.observer = observer;
+    }
+    /**
+     * Set the handler called when a structure throws an exception while drawing.
+     * Without a handler, the exception is thrown out of draw().
+     * @param errorHandler Handler, or null
+     */
+    public void setErrorHandler(@Nullable BiConsumer<RoostStructure, Exception> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /*============================== Publish ==============================*/
+    /**
+     * Apply the staged changes and publish a new snapshot of the structures.
+     * It may be called from any thread; draw() does it by itself.
+     */
+    public void publish() {
+        if(staged.isEmpty())
+            return;
+        synchronized (publishLock) {
+            publishLocked();
+        }
+    }
+
+    /**
+     * Publish the staged changes and run the draws of a frame, while nobody else can publish.
+     * Tiles of a frame draw at the same time, so they see the same structures.
+     * @param draws Draws of the frame. They draw with drawPublished(Graphics2D).
+     */
+    void publishAndDraw(@NotNull Runnable draws) {
+        synchronized (publishLock) {
+            publishLocked();
+            draws.run();
+        }
+    }
+
+    private void publishLocked() {
+        if(staged.isEmpty())
+            return;
+        boolean changed;
+        indexLock.writeLock().lock();
+        try {
+            changed = apply();
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        if(!changed)
+            return;
+        flushRemoved();
+        snapshot = structures.toArray(NO_STRUCTURES);
+    }
+
+    private boolean apply() {
+        boolean changed = false;
+        Change change;
+        while((change = staged.poll()) != null) {
+            RoostStructure structure = change.structure();
+            switch (change.op()) {
+                case ADD -> {
+                    // Removed and added again in the same frame: it goes to the end, so remove the old one first.
+                    if(removed.containsKey(structure))
+                        flushRemoved();
+                    structures.add(structure);
+                    index.add(structure);
+                    changed = true;
+                }
+                case REMOVE -> {
+                    removed.put(structure, Boolean.TRUE);
+                    index.remove(structure);
+                    changed = true;
+                }
+                case UPDATE -> {
+                    // Changes after this are staged again.
+                    pendingUpdates.remove(structure);
+                    index.update(structure);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private void flushRemoved() {
+        if(removed.isEmpty())
+            return;
+        structures.removeIf(removed::containsKey);
+        removed.clear();
+    }
+
+    /*============================== Draw ==============================*/
+    /**
+     * Publish the staged changes, and draw the structures in the clip of the graphics(or all of them if it has no clip).
+     * @param g Graphics to draw into
+     */
+    public void draw(@NotNull Graphics2D g) {
+        publish();
+        drawPublished(g);
+    }
+
+    /**
+     * Draw the last published structures without publishing.
+     * @param g Graphics to draw into
+     */
+    void drawPublished(@NotNull Graphics2D g) {
+        // Only the structures in the clip(the visible area) are drawn.
+        Rectangle clip = g.getClipBounds();
+        List<RoostStructure> visible = Arrays.asList(snapshot);
+        if(clip != null) {
+            visible = new ArrayList<>();
+            indexLock.readLock().lock();
+            try {
+                index.query(clip, true, visible);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        }
+        // Structures of the same class drawn one after another are a batch.
+        boolean profiling = profiler != null && profiler.isEnabled();
+        StructureRenderer<RoostStructure> batch = null;
+        Class<?> batchType = null;
+        long batchStart = 0;
+        int batchSize = 0;
+        for (RoostStructure structure : visible) {
+            if(structure.getClass() != batchType) {
+                if(batch != null) {
+                    batch.end(g);
+                    if(profiling)
+                        profiler.recordDraw(batchType, System.nanoTime() - batchStart, batchSize);
+                }
+                batchType = structure.getClass();
+                batch = renderers.get(structure.getClass());
+                batch.begin(g);
+                batchStart = profiling ? System.nanoTime() : 0;
+                batchSize = 0;
+            }
+            batchSize++;
+            try {
+                batch.render(g, structure);
+            } catch(RuntimeException e) {
+                BiConsumer<RoostStructure, Exception> errorHandler = this.errorHandler;
+                if(errorHandler == null)
+                    throw e;
+                errorHandler.accept(structure, e);
+            }
+        }
+        if(batch != null) {
+            batch.end(g);
+            if(profiling)
+                profiler.recordDraw(batchType, System.nanoTime() - batchStart, batchSize);
+        }
+    }
+}
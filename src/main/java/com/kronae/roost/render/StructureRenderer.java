@@ -0,0 +1,33 @@
+package com.kronae.roost.render;
+
+import com.kronae.roost.structure.RoostStructure;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+
+/**
+ * Draw structures of a class.
+ * Structures drawn one after another by the same renderer are a batch:
+ * begin and end are called once per batch, so set the color, font or composite there.
+ * @param <T> Type of the structure
+ */
+public interface StructureRenderer<T extends RoostStructure> {
+    /**
+     * Called before the first structure of a batch.
+     * @param g Graphics to draw into
+     */
+    default void begin(@NotNull Graphics2D g) {
+    }
+    /**
+     * Draw the structure.
+     * @param g Graphics to draw into
+     * @param structure Structure to draw
+     */
+    void render(@NotNull Graphics2D g, @NotNull T structure);
+    /**
+     * Called after the last structure of a batch.
+     * @param g Graphics to draw into
+     */
+    default void end(@NotNull Graphics2D g) {
+    }
+}
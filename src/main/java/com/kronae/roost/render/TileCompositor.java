@@ -0,0 +1,126 @@
+package com.kronae.roost.render;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws a scene into a large image in parallel.
+ * The image is split into tiles, and each tile is drawn on a fork-join pool with its own Graphics clipped to it.
+ * The scene culls the structures of each tile with the clip, and every tile writes straight into the same pixels.
+ * Since a tile only writes inside of its clip, the result is the same as drawing the whole image at once.
+ */
+public class TileCompositor {
+    private final ForkJoinPool pool;
+    private volatile int tileSize;
+
+    /**
+     * Constructor with the common pool.
+     * @param tileSize Width and height of a tile
+     */
+    public TileCompositor(int tileSize) {
+        this(tileSize, ForkJoinPool.commonPool());
+    }
+    /**
+     * Constructor
+     * @param tileSize Width and height of a tile
+     * @param pool Pool the tiles are drawn on
+     */
+    public TileCompositor(int tileSize, @NotNull ForkJoinPool pool) {
+        setTileSize(tileSize);
+        this.pool = pool;
+    }
+
+    /**
+     * Set the width and height of a tile.
+     * @param tileSize Tile size
+     */
+    public void setTileSize(int tileSize) {
+        if(tileSize <= 0) throw new IllegalArgumentException("tileSize must be positive: " + tileSize);
+        this.tileSize = tileSize;
+    }
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Check whether the image can be drawn by tiles. Its pixels must be an int array.
+     * @param image Image to draw into
+     * @return Whether the image is supported
+     */
+    public static boolean supports(@NotNull BufferedImage image) {
+        return image.getRaster().getDataBuffer() instanceof DataBufferInt;
+    }
+
+    /**
+     * Clear the image with the background and draw the scene into it.
+     * Images which are not supported, or which fit in a tile, are drawn on the calling thread.
+     * @param scene Scene to draw
+     * @param image Image to draw into
+     * @param background Color to clear the image with
+     */
+    public void draw(@NotNull Scene scene, @NotNull BufferedImage image, @NotNull Color background) {
+        int tileSize = this.tileSize;
+        int columns = (image.getWidth() + tileSize - 1) / tileSize;
+        int rows = (image.getHeight() + tileSize - 1) / tileSize;
+        if(columns * rows <= 1 || !supports(image)) {
+            scene.publish();
+            drawTile(scene, image, background, 0, 0, image.getWidth(), image.getHeight());
+            return;
+        }
+        scene.publishAndDraw(() -> pool.invoke(new Tiles(scene, image, background, tileSize, columns, 0, columns * rows)));
+    }
+
+    private static void drawTile(Scene scene, BufferedImage image, Color background, int x, int y, int width, int height) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setClip(x, y, width, height);
+            g.setColor(background);
+            g.fillRect(x, y, width, height);
+            g.setColor(Color.BLACK);
+            scene.drawPublished(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Tiles from..to(exclusive), numbered row by row. It splits in half until a single tile is left.
+     */
+    private static final class Tiles extends RecursiveAction {
+        private final Scene scene;
+        private final BufferedImage image;
+        private final Color background;
+        private final int tileSize;
+        private final int columns;
+        private final int from;
+        private final int to;
+
+        Tiles(Scene scene, BufferedImage image, Color background, int tileSize, int columns, int from, int to) {
+            this.scene = scene;
+            this.image = image;
+            this.background = background;
+            this.tileSize = tileSize;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Tiles(scene, image, background, tileSize, columns, from, middle),
+                        new Tiles(scene, image, background, tileSize, columns, middle, to));
+                return;
+            }
+            int x = (from % columns) * tileSize;
+            int y = (from / columns) * tileSize;
+            drawTile(scene, image, background, x, y, Math.min(tileSize, image.getWidth() - x), Math.min(tileSize, image.getHeight() - y));
+        }
+    }
+}
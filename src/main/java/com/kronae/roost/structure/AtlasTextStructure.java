@@ -0,0 +1,147 @@
+package com.kronae.roost.structure;
+
+import com.kronae.roost.render.GlyphAtlas;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Text which changes every frame, such as counters, timers and log tails.
+ * It is drawn from a GlyphAtlas: no shaping, no kerning, and no allocation once the glyphs are in the atlas.
+ * Use TextStructure for static text.
+ */
+public class AtlasTextStructure extends MutableStructure {
+    private final int x;
+    private final int y;
+    private final @Nullable Font font;
+    private final @Nullable Color color;
+    private final boolean monospace;
+    private char[] chars;
+    private int length;
+    private @Nullable GlyphAtlas atlas;
+
+    /**
+     * Constructor
+     * @param x X of the baseline start
+     * @param y Y of the baseline
+     * @param font Font of the text. null uses the font of the window.
+     * @param color Color of the text. null uses the color of the window.
+     * @param monospace Whether every character takes the same width. Good for numbers which change.
+     */
+    public AtlasTextStructure(int x, int y, @Nullable Font font, @Nullable Color color, boolean monospace) {
+        this.x = x;
+        this.y = y;
+        this.font = font;
+        this.color = color;
+        this.monospace = monospace;
+        this.chars = new char[16];
+    }
+
+    /**
+     * Set the text. The characters are copied, and the buffer only grows if the text is longer than ever.
+     * @param text Text
+     */
+    public void setText(@NotNull CharSequence text) {
+        Rectangle old = hasChangeListeners() ? getBounds() : null;
+        synchronized (this) {
+            ensureCapacity(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                chars[i] = text.charAt(i);
+            }
+            length = text.length();
+        }
+        changed(old);
+    }
+    /**
+     * Set the text to the number, without making a String.
+     * @param number Number
+     */
+    public void setNumber(long number) {
+        if(number == Long.MIN_VALUE) {
+            setText(Long.toString(number));
+            return;
+        }
+        Rectangle old = hasChangeListeners() ? getBounds() : null;
+        synchronized (this) {
+            ensureCapacity(20);
+            boolean negative = number < 0;
+            long rest = Math.abs(number);
+            int digits = 1;
+            for (long n = rest; n >= 10; n /= 10) {
+                digits++;
+            }
+            int end = (negative ? 1 : 0) + digits;
+            for (int i = end - 1; i >= end - digits; i--) {
+                chars[i] = (char) ('0' + rest % 10);
+                rest /= 10;
+            }
+            if(negative)
+                chars[0] = '-';
+            length = end;
+        }
+        changed(old);
+    }
+    /**
+     * Get the text. It makes a String, so do not call it on every frame.
+     * @return Text
+     */
+    public synchronized @NotNull String getText() {
+        return new String(chars, 0, length);
+    }
+    public int getX() {
+        return x;
+    }
+    public int getY() {
+        return y;
+    }
+    public boolean isMonospace() {
+        return monospace;
+    }
+
+    @Override
+    public void render(@NotNull Graphics2D g) {
+        Font font = this.font != null ? this.font : g.getFont();
+        Color color = this.color != null ? this.color : g.getColor();
+        boolean antialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING) == RenderingHints.VALUE_TEXT_ANTIALIAS_ON;
+        boolean first = false;
+        synchronized (this) {
+            GlyphAtlas atlas = this.atlas;
+            if(atlas == null || !atlas.getFont().equals(font) || atlas.isAntialias() != antialias) {
+                first = atlas == null;
+                this.atlas = atlas = GlyphAtlas.get(font, antialias);
+            }
+            atlas.draw(g, color, chars, length, x, y, monospace);
+        }
+        // The bounds are known now, so the window has to index them.
+        if(first)
+            changed(null);
+    }
+
+    /**
+     * Get the area the text draws. It is unknown until the text is drawn once.
+     * @return Bounds of the text. null if unknown.
+     */
+    @Override
+    public synchronized @Nullable Rectangle getBounds() {
+        GlyphAtlas atlas = this.atlas;
+        if(atlas == null)
+            return null;
+        return new Rectangle(x, y - atlas.getAscent(), atlas.width(chars, length, monospace), atlas.getLineHeight());
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(chars.length < capacity)
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+    }
+
+    @Override
+    public String toString() {
+        return "AtlasTextStructure{" +
+                "x=" + x +
+                ", y=" + y +
+                ", text='" + getText() + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,185 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base of the structures which keep many primitives in primitive arrays and draw them in one pass.
+ * The primitives are kept in two Columns: updates are written into the back one, and the window draws and indexes the front one.
+ * Call commit() after a set of updates: it swaps the two Columns and copies only the primitives updated since the last commit
+ * into the new back one, so a commit does not allocate and the arrays can be updated from any thread.
+ */
+public abstract class BatchStructure extends MutableStructure {
+    protected int size;
+    // Primitives from(inclusive)..to(exclusive) are updated since the last commit.
+    private int dirtyFrom = Integer.MAX_VALUE;
+    private int dirtyTo;
+    private @NotNull Columns back;
+    private @NotNull Columns behind;
+    private volatile @Nullable Columns front;
+    private volatile @Nullable Rectangle bounds;
+    private volatile boolean filled;
+
+    /**
+     * Primitives of a batch. It is either written by the updates or drawn, never both at once.
+     */
+    protected abstract static class Columns {
+        protected int size;
+        // Threads drawing the columns. commit() waits for them before the columns are written again.
+        private final AtomicInteger readers = new AtomicInteger();
+
+        /**
+         * Fill every primitive.
+         * Filling one merged path is very slow with many sub paths,
+         * so each batch fills its primitives straight from the arrays.
+         * @param g Graphics to draw into
+         */
+        protected abstract void fill(@NotNull Graphics2D g);
+        /**
+         * Draw the outline of every primitive.
+         * Each primitive is drawn on its own, because a stroked path is rasterized differently under a clip
+         * and the tiles of a frame would not match a frame drawn at once.
+         * @param g Graphics to draw into
+         */
+        protected abstract void stroke(@NotNull Graphics2D g);
+        /**
+         * Compute the bounds of every primitive.
+         * @return Bounds. null if the batch is empty.
+         */
+        protected abstract @Nullable Rectangle computeBounds();
+        /**
+         * Copy primitives from(inclusive)..to(exclusive) of other columns of the same batch. The arrays grow if they are too short.
+         * @param other Columns to copy from
+         * @param from First primitive
+         * @param to Primitive after the last one
+         */
+        protected abstract void copy(@NotNull Columns other, int from, int to);
+    }
+
+    /**
+     * Constructor
+     * @param back Empty columns the updates are written into first
+     * @param behind Empty columns of the same capacity, drawn after the first commit()
+     */
+    protected BatchStructure(@NotNull Columns back, @NotNull Columns behind) {
+        this.back = back;
+        this.behind = behind;
+    }
+
+    /**
+     * Get the number of primitives.
+     * @return Number of primitives
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Remove every primitive.
+     */
+    public void clear() {
+        size = 0;
+    }
+    /**
+     * Set whether the primitives are filled or outlined.
+     * @param filled Whether the primitives are filled
+     */
+    public void setFilled(boolean filled) {
+        if(this.filled == filled) return;
+        this.filled = filled;
+        changed(getBounds());
+    }
+    public boolean isFilled() {
+        return filled;
+    }
+
+    /**
+     * Finish a set of updates: the updated columns are drawn from now on, the bounds are computed again,
+     * and the window is told about the change.
+     * Call it from the thread which updates the batch.
+     */
+    public void commit() {
+        Columns next = back;
+        next.size = size;
+        Rectangle old = bounds;
+        bounds = next.computeBounds();
+        front = next;
+        // The columns drawn until now become the back ones. Wait for the draws which still use them.
+        Columns previous = behind;
+        while(previous.readers.get() != 0) {
+            Thread.yield();
+        }
+        if(dirtyFrom < Math.min(dirtyTo, size))
+            previous.copy(next, dirtyFrom, Math.min(dirtyTo, size));
+        previous.size = size;
+        back = previous;
+        behind = next;
+        dirtyFrom = Integer.MAX_VALUE;
+        dirtyTo = 0;
+        changed(old);
+    }
+
+    @Override
+    public @Nullable Rectangle getBounds() {
+        Rectangle bounds = this.bounds;
+        return bounds == null ? null : new Rectangle(bounds);
+    }
+
+    @Override
+    public void render(@NotNull Graphics2D g) {
+        Columns columns;
+        // Count as a reader of the front columns, and check that they are still the front ones after that.
+        while(true) {
+            columns = front;
+            if(columns == null) return;
+            columns.readers.incrementAndGet();
+            if(columns == front) break;
+            columns.readers.decrementAndGet();
+        }
+        try {
+            if(isFilled())
+                columns.fill(g);
+            else
+                columns.stroke(g);
+        } finally {
+            columns.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the columns the updates are written into. They change on every commit(), so do not keep them.
+     * @return Back columns
+     */
+    protected @NotNull Columns getColumns() {
+        return back;
+    }
+
+    /**
+     * Call it after the primitives from(inclusive)..to(exclusive) are updated.
+     * @param from First updated primitive
+     * @param to Primitive after the last updated one
+     */
+    protected void modified(int from, int to) {
+        dirtyFrom = Math.min(dirtyFrom, from);
+        dirtyTo = Math.max(dirtyTo, to);
+    }
+
+    /**
+     * Grow the capacity for one more primitive if it is needed.
+     * @param capacity Current length of the primitive arrays
+     * @return New length of the primitive arrays
+     */
+    protected int grow(int capacity) {
+        return size < capacity ? capacity : Math.max(16, capacity * 2);
+    }
+
+    /**
+     * Check the index of a primitive.
+     * @param index Index of the primitive
+     */
+    protected void checkIndex(int index) {
+        if(index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+}
@@ -1,30 +1,54 @@
 package com.kronae.roost.structure;
 
+import com.kronae.roost.image.ImageCache;
+import com.kronae.roost.image.ImageLoader;
+import com.kronae.roost.image.ScaleQuality;
+import com.kronae.roost.image.ScaledImageCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import javax.imageio.ImageIO;
 import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-public class ImageStructure implements RoostStructure {
+public class ImageStructure extends MutableStructure {
     private final int lx;
     private final int ly;
     private final int sx;
     private final int sy;
-    private final BufferedImage image;
+    private volatile BufferedImage image;
+    private volatile @NotNull ScaleQuality quality = ScaleQuality.NEAREST;
+    private volatile @Nullable BufferedImage placeholder;
+    private volatile @Nullable ImageLoader.Task task;
+    private @Nullable CompletableFuture<ImageStructure> loaded;
+    private volatile @Nullable Throwable loadError;
     public ImageStructure(int locationX, int locationY, URL imageURL) throws IOException {
         this.lx = locationX;
         this.ly = locationY;
         this.sx = -1;
         this.sy = -1;
-        this.image = ImageIO.read(imageURL);
+        this.image = ImageCache.getDefault().load(imageURL);
     }
     public ImageStructure(int locationX, int locationY, ImageInputStream imageInputStream) throws IOException {
         this.lx = locationX;
         this.ly = locationY;
         this.sx = -1;
         this.sy = -1;
-        this.image = ImageIO.read(imageInputStream);
+        BufferedImage decoded = ImageIO.read(imageInputStream);
+        this.image = decoded == null ? null : ImageCache.toCompatible(decoded);
+    }
+    public ImageStructure(int locationX, int locationY, Path imagePath) throws IOException {
+        this.lx = locationX;
+        this.ly = locationY;
+        this.sx = -1;
+        this.sy = -1;
+        this.image = ImageCache.getDefault().load(imagePath);
     }
     public ImageStructure(int locationX, int locationY, BufferedImage image) throws IOException {
         this.lx = locationX;
@@ -38,14 +62,22 @@ public class ImageStructure implements RoostStructure {
         this.ly = locationY;
         this.sx = sizeX;
         this.sy = sizeY;
-        this.image = ImageIO.read(imageURL);
+        this.image = ImageCache.getDefault().load(imageURL);
     }
     public ImageStructure(int locationX, int locationY, int sizeX, int sizeY, ImageInputStream imageInputStream) throws IOException {
         this.lx = locationX;
         this.ly = locationY;
         this.sx = sizeX;
         this.sy = sizeY;
-        this.image = ImageIO.read(imageInputStream);
+        BufferedImage decoded = ImageIO.read(imageInputStream);
+        this.image = decoded == null ? null : ImageCache.toCompatible(decoded);
+    }
+    public ImageStructure(int locationX, int locationY, int sizeX, int sizeY, Path imagePath) throws IOException {
+        this.lx = locationX;
+        this.ly = locationY;
+        this.sx = sizeX;
+        this.sy = sizeY;
+        this.image = ImageCache.getDefault().load(imagePath);
     }
     public ImageStructure(int locationX, int locationY, int sizeX, int sizeY, BufferedImage image) {
         this.lx = locationX;
@@ -54,6 +86,103 @@ public class ImageStructure implements RoostStructure {
         this.sy = sizeY;
         this.image = image;
     }
+    /*============================== Async ==============================*/
+    /**
+     * Create the structure now, and load the image of the URL on the ImageLoader.
+     * Nothing(or the placeholder) is drawn until the image is loaded.
+     * @return Structure which is loading
+     */
+    public static ImageStructure loadAsync(int locationX, int locationY, URL imageURL) {
+        return loadAsync(locationX, locationY, -1, -1, () -> ImageCache.getDefault().load(imageURL));
+    }
+    /**
+     * Create the structure now, and load the image of the URL on the ImageLoader.
+     * Nothing(or the placeholder) is drawn until the image is loaded.
+     * @return Structure which is loading
+     */
+    public static ImageStructure loadAsync(int locationX, int locationY, int sizeX, int sizeY, URL imageURL) {
+        return loadAsync(locationX, locationY, sizeX, sizeY, () -> ImageCache.getDefault().load(imageURL));
+    }
+    /**
+     * Create the structure now, and load the image of the file on the ImageLoader.
+     * Nothing(or the placeholder) is drawn until the image is loaded.
+     * @return Structure which is loading
+     */
+    public static ImageStructure loadAsync(int locationX, int locationY, Path imagePath) {
+        return loadAsync(locationX, locationY, -1, -1, () -> ImageCache.getDefault().load(imagePath));
+    }
+    /**
+     * Create the structure now, and load the image of the file on the ImageLoader.
+     * Nothing(or the placeholder) is drawn until the image is loaded.
+     * @return Structure which is loading
+     */
+    public static ImageStructure loadAsync(int locationX, int locationY, int sizeX, int sizeY, Path imagePath) {
+        return loadAsync(locationX, locationY, sizeX, sizeY, () -> ImageCache.getDefault().load(imagePath));
+    }
+    private static ImageStructure loadAsync(int locationX, int locationY, int sizeX, int sizeY, ImageCache.Loader loader) {
+        ImageStructure structure = new ImageStructure(locationX, locationY, sizeX, sizeY, (BufferedImage) null);
+        ImageLoader.Task task = ImageLoader.getDefault().submit(loader);
+        structure.task = task;
+        CompletableFuture<ImageStructure> loaded = new CompletableFuture<>();
+        structure.loaded = loaded;
+        task.future().whenComplete((image, error) -> {
+            if(error == null) {
+                structure.setLoadedImage(image);
+                loaded.complete(structure);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            structure.loadError = cause;
+            structure.task = null;
+            System.err.println("Roost: ERROR: ImageStructure: Cannot load the image: " + cause);
+            loaded.completeExceptionally(cause);
+        });
+        return structure;
+    }
+    private void setLoadedImage(BufferedImage image) {
+        Rectangle old = getBounds();
+        this.image = image;
+        this.task = null;
+        changed(old);
+    }
+    /**
+     * Get the future which is completed when the image is loaded.
+     * It is already completed if the structure was not created by loadAsync.
+     * If the image cannot be loaded, it is completed with the exception(like IOException).
+     * @return Future of the structure
+     */
+    public @NotNull CompletableFuture<ImageStructure> whenLoaded() {
+        CompletableFuture<ImageStructure> loaded = this.loaded;
+        return loaded == null ? CompletableFuture.completedFuture(this) : loaded;
+    }
+    /**
+     * Check whether the loading is over. It is also over when the image cannot be loaded(getLoadError()).
+     * @return Whether the loading is over
+     */
+    public boolean isLoaded() {
+        return task == null;
+    }
+    /**
+     * Get the exception of the loading, if the image cannot be loaded.
+     * @return Exception, or null
+     */
+    public @Nullable Throwable getLoadError() {
+        return loadError;
+    }
+    /**
+     * Set the image drawn while the image is loading.
+     * @param placeholder Placeholder image. null draws nothing.
+     */
+    public void setPlaceholder(@Nullable BufferedImage placeholder) {
+        if(image != null) {
+            this.placeholder = placeholder;
+            return;
+        }
+        // It is drawn instead of the image, so the bounds and the pixels change like when the image is loaded.
+        Rectangle old = getBounds();
+        this.placeholder = placeholder;
+        changed(old);
+    }
     // GETTER
     public int getLocationX() {
         return lx;
@@ -70,4 +199,47 @@ public class ImageStructure implements RoostStructure {
     public BufferedImage getImage() {
         return image;
     }
+    public @NotNull ScaleQuality getScaleQuality() {
+        return quality;
+    }
+    /**
+     * Set the interpolation used when the image is drawn at another size.
+     * The image is scaled once with it and cached, not on every frame.
+     * @param quality Scale quality (Default: NEAREST)
+     */
+    public void setScaleQuality(@NotNull ScaleQuality quality) {
+        this.quality = quality;
+    }
+
+    @Override
+    public void render(@NotNull Graphics2D g) {
+        BufferedImage image = this.image;
+        if(image == null) {
+            // It is drawn, so it is visible: load it before the others.
+            ImageLoader.Task task = this.task;
+            if(task != null)
+                task.prioritize();
+            image = placeholder;
+            if(image == null)
+                return;
+        }
+        if(sx == -1 && sy == -1)
+            g.drawImage(image, lx, ly, null);
+        else if(sx <= 0 || sy <= 0)
+            g.drawImage(image, lx, ly, sx, sy, null);
+        else
+            g.drawImage(ScaledImageCache.getDefault().get(image, sx, sy, quality), lx, ly, null);
+    }
+
+    @Override
+    public @NotNull Rectangle getBounds() {
+        BufferedImage image = this.image;
+        if(image == null)
+            image = placeholder;
+        if(image == null && sx == -1 && sy == -1)
+            return new Rectangle(lx, ly, 1, 1); // Size is unknown until the image is loaded.
+        if(sx == -1 && sy == -1)
+            return new Rectangle(lx, ly, image.getWidth(), image.getHeight());
+        return new Rectangle(lx, ly, sx, sy);
+    }
 }
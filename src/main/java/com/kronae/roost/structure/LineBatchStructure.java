@@ -0,0 +1,127 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Many lines in one structure.
+ * It keeps the end points in int arrays.
+ */
+public class LineBatchStructure extends BatchStructure {
+    public LineBatchStructure() {
+        this(16);
+    }
+    /**
+     * Constructor
+     * @param capacity Initial number of lines it can hold
+     */
+    public LineBatchStructure(int capacity) {
+        super(new Lines(capacity), new Lines(capacity));
+    }
+
+    /**
+     * Add a line.
+     * @return Index of the line
+     */
+    public int add(int x1, int y1, int x2, int y2) {
+        Lines lines = (Lines) getColumns();
+        int capacity = grow(lines.x1s.length);
+        if(capacity != lines.x1s.length)
+            lines.resize(capacity);
+        int index = size++;
+        set(index, x1, y1, x2, y2);
+        return index;
+    }
+    /**
+     * Set a line.
+     * @param index Index of the line
+     */
+    public void set(int index, int x1, int y1, int x2, int y2) {
+        checkIndex(index);
+        Lines lines = (Lines) getColumns();
+        lines.x1s[index] = x1;
+        lines.y1s[index] = y1;
+        lines.x2s[index] = x2;
+        lines.y2s[index] = y2;
+        modified(index, index + 1);
+    }
+    // GETTER
+    public int getX1(int index) {
+        checkIndex(index);
+        return ((Lines) getColumns()).x1s[index];
+    }
+    public int getY1(int index) {
+        checkIndex(index);
+        return ((Lines) getColumns()).y1s[index];
+    }
+    public int getX2(int index) {
+        checkIndex(index);
+        return ((Lines) getColumns()).x2s[index];
+    }
+    public int getY2(int index) {
+        checkIndex(index);
+        return ((Lines) getColumns()).y2s[index];
+    }
+
+    private static final class Lines extends Columns {
+        private int[] x1s;
+        private int[] y1s;
+        private int[] x2s;
+        private int[] y2s;
+
+        private Lines(int capacity) {
+            x1s = new int[capacity];
+            y1s = new int[capacity];
+            x2s = new int[capacity];
+            y2s = new int[capacity];
+        }
+
+        private void resize(int capacity) {
+            x1s = Arrays.copyOf(x1s, capacity);
+            y1s = Arrays.copyOf(y1s, capacity);
+            x2s = Arrays.copyOf(x2s, capacity);
+            y2s = Arrays.copyOf(y2s, capacity);
+        }
+
+        @Override
+        protected void fill(@NotNull Graphics2D g) {
+            for (int i = 0; i < size; i++) {
+                g.drawLine(x1s[i], y1s[i], x2s[i], y2s[i]);
+            }
+        }
+
+        @Override
+        protected void stroke(@NotNull Graphics2D g) {
+            // A line has no inside, so both draw the same.
+            fill(g);
+        }
+
+        @Override
+        protected @Nullable Rectangle computeBounds() {
+            if(size == 0)
+                return null;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                minX = Math.min(minX, Math.min(x1s[i], x2s[i]));
+                minY = Math.min(minY, Math.min(y1s[i], y2s[i]));
+                maxX = Math.max(maxX, Math.max(x1s[i], x2s[i]));
+                maxY = Math.max(maxY, Math.max(y1s[i], y2s[i]));
+            }
+            return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+
+        @Override
+        protected void copy(@NotNull Columns other, int from, int to) {
+            Lines lines = (Lines) other;
+            if(x1s.length < lines.x1s.length)
+                resize(lines.x1s.length);
+            System.arraycopy(lines.x1s, from, x1s, from, to - from);
+            System.arraycopy(lines.y1s, from, y1s, from, to - from);
+            System.arraycopy(lines.x2s, from, x2s, from, to - from);
+            System.arraycopy(lines.y2s, from, y2s, from, to - from);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Base of the structures which can be changed after they are added.
+ * Call changed(Rectangle) after every change, so the window can repaint it.
+ */
+public abstract class MutableStructure implements RoostStructure {
+    private static final StructureChangeListener[] NO_LISTENERS = new StructureChangeListener[0];
+    private volatile StructureChangeListener[] listeners = NO_LISTENERS;
+
+    @Override
+    public synchronized void addChangeListener(@NotNull StructureChangeListener listener) {
+        StructureChangeListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    @Override
+    public synchronized void removeChangeListener(@NotNull StructureChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if(listeners[i] == listener) {
+                StructureChangeListener[] next = new StructureChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, next.length - i);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check whether anyone listens to the changes.
+     * Use it to skip building the old bounds when nobody needs them.
+     * @return Whether a listener is added
+     */
+    protected boolean hasChangeListeners() {
+        return listeners.length != 0;
+    }
+
+    /**
+     * Tell the listeners that the structure is changed.
+     * @param oldBounds Bounds before the change. null if unknown.
+     */
+    protected void changed(@Nullable Rectangle oldBounds) {
+        for (StructureChangeListener listener : listeners) {
+            listener.structureChanged(this, oldBounds);
+        }
+    }
+
+    /**
+     * Tell the listeners that only an area of the structure is changed, so only the area has to be repainted.
+     * @param area Changed area
+     */
+    protected void areaChanged(@NotNull Rectangle area) {
+        for (StructureChangeListener listener : listeners) {
+            listener.areaChanged(this, area);
+        }
+    }
+}
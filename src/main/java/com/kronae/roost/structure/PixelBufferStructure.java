@@ -0,0 +1,312 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Structure of raw ARGB pixels, for per-pixel data like heatmaps, waveforms or cellular simulations.
+ * The pixels are an int array shared with the raster of a BufferedImage, so writes are drawn as they are.
+ * <p>
+ * Writes mark their rows dirty, and commit() tells the window to repaint only the dirty rows.
+ * Writes never allocate. Writing while the window draws the structure may show a half-written frame.
+ */
+public class PixelBufferStructure extends MutableStructure {
+    /**
+     * Update of a band of rows, run by updateRows().
+     */
+    @FunctionalInterface
+    public interface RowBand {
+        /**
+         * Update the rows from..to(exclusive).
+         * @param pixels Pixels of the buffer. The pixel (x, y) is pixels[y * width + x].
+         * @param width Width of the buffer
+         * @param fromRow First row of the band
+         * @param toRow Row after the last row of the band
+         */
+        void update(int @NotNull [] pixels, int width, int fromRow, int toRow);
+    }
+
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final AtomicLongArray dirtyRows;
+    private volatile int x;
+    private volatile int y;
+
+    /**
+     * Constructor with an ARGB buffer.
+     * @param x X of the buffer
+     * @param y Y of the buffer
+     * @param width Width of the buffer
+     * @param height Height of the buffer
+     */
+    public PixelBufferStructure(int x, int y, int width, int height) {
+        this(x, y, width, height, false);
+    }
+    /**
+     * Constructor
+     * @param x X of the buffer
+     * @param y Y of the buffer
+     * @param width Width of the buffer
+     * @param height Height of the buffer
+     * @param opaque Whether the alpha of the pixels is ignored. Opaque buffers are drawn faster.
+     */
+    public PixelBufferStructure(int x, int y, int width, int height, boolean opaque) {
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("Size must be positive: " + width + "x" + height);
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.dirtyRows = new AtomicLongArray((height + 63) >>> 6);
+    }
+
+    /*============================== Pixels ==============================*/
+    /**
+     * Get the pixels of the buffer. The pixel (x, y) is pixels[y * getWidth() + x].
+     * Mark the rows you write into with markRows().
+     * @return Pixels shared with the image
+     */
+    public int @NotNull [] getPixels() {
+        return pixels;
+    }
+    public int getPixel(int px, int py) {
+        return pixels[py * width + px];
+    }
+    public void setPixel(int px, int py, int argb) {
+        pixels[py * width + px] = argb;
+        markRow(py);
+    }
+    /**
+     * Fill every pixel with a color.
+     * @param argb Color
+     */
+    public void fill(int argb) {
+        Arrays.fill(pixels, argb);
+        markRows(0, height);
+    }
+    /**
+     * Fill a rectangle with a color. The part outside the buffer is ignored.
+     * @param rx X of the rectangle
+     * @param ry Y of the rectangle
+     * @param rw Width of the rectangle
+     * @param rh Height of the rectangle
+     * @param argb Color
+     */
+    public void fillRect(int rx, int ry, int rw, int rh, int argb) {
+        int x0 = Math.max(rx, 0), x1 = Math.min(rx + rw, width);
+        int y0 = Math.max(ry, 0), y1 = Math.min(ry + rh, height);
+        if(x0 >= x1 || y0 >= y1) return;
+        for (int row = y0; row < y1; row++) {
+            int offset = row * width;
+            Arrays.fill(pixels, offset + x0, offset + x1, argb);
+        }
+        markRows(y0, y1);
+    }
+    /**
+     * Copy pixels from an array, like BufferedImage.setRGB(). The part outside the buffer is ignored.
+     * @param dx X to copy to
+     * @param dy Y to copy to
+     * @param w Width of the pixels
+     * @param h Height of the pixels
+     * @param argb Source pixels
+     * @param offset Index of the first source pixel
+     * @param scan Distance between the rows of the source
+     */
+    public void setPixels(int dx, int dy, int w, int h, int @NotNull [] argb, int offset, int scan) {
+        int x0 = Math.max(dx, 0), x1 = Math.min(dx + w, width);
+        int y0 = Math.max(dy, 0), y1 = Math.min(dy + h, height);
+        if(x0 >= x1 || y0 >= y1) return;
+        for (int row = y0; row < y1; row++) {
+            System.arraycopy(argb, offset + (row - dy) * scan + (x0 - dx), pixels, row * width + x0, x1 - x0);
+        }
+        markRows(y0, y1);
+    }
+    /**
+     * Copy a rectangle of another buffer(or this buffer) into this buffer. The part outside either buffer is ignored.
+     * Overlapping copies inside the same buffer are copied as if through a temporary buffer.
+     * @param source Buffer to copy from
+     * @param sx X of the source rectangle
+     * @param sy Y of the source rectangle
+     * @param dx X to copy to
+     * @param dy Y to copy to
+     * @param w Width of the rectangle
+     * @param h Height of the rectangle
+     */
+    public void blit(@NotNull PixelBufferStructure source, int sx, int sy, int dx, int dy, int w, int h) {
+        // Clip the rectangle to the source, then to this buffer.
+        int left = Math.max(Math.max(-sx, -dx), 0);
+        int top = Math.max(Math.max(-sy, -dy), 0);
+        int right = Math.min(Math.min(source.width - sx, width - dx), w);
+        int bottom = Math.min(Math.min(source.height - sy, height - dy), h);
+        if(left >= right || top >= bottom) return;
+        int[] from = source.pixels;
+        int length = right - left;
+        if(source == this && dy > sy) {
+            // Copying down inside the same buffer: copy from the bottom row, so no row is overwritten before it is read.
+            for (int row = bottom - 1; row >= top; row--)
+                System.arraycopy(from, (sy + row) * source.width + sx + left, pixels, (dy + row) * width + dx + left, length);
+        } else {
+            for (int row = top; row < bottom; row++)
+                System.arraycopy(from, (sy + row) * source.width + sx + left, pixels, (dy + row) * width + dx + left, length);
+        }
+        markRows(dy + top, dy + bottom);
+    }
+    /**
+     * Update every row in parallel on the common fork-join pool.
+     * @param band Update of a band of rows
+     */
+    public void updateRows(@NotNull RowBand band) {
+        updateRows(0, height, band);
+    }
+    /**
+     * Update the rows from..to(exclusive) in parallel on the common fork-join pool, and mark them dirty.
+     * Bands never share a row, so a band may write any pixel of its rows without synchronization.
+     * @param fromRow First row
+     * @param toRow Row after the last row
+     * @param band Update of a band of rows
+     */
+    public void updateRows(int fromRow, int toRow, @NotNull RowBand band) {
+        if(fromRow < 0 || toRow > height || fromRow > toRow) throw new IndexOutOfBoundsException("Rows " + fromRow + ".." + toRow + " out of bounds for height " + height);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int bandHeight = Math.max(16, (toRow - fromRow) / (pool.getParallelism() * 4));
+        pool.invoke(new Bands(band, fromRow, toRow, bandHeight));
+        markRows(fromRow, toRow);
+    }
+
+    /*============================== Dirty Rows ==============================*/
+    /**
+     * Mark a row dirty after writing into getPixels().
+     * @param row Row
+     */
+    public void markRow(int row) {
+        int word = row >>> 6;
+        long bit = 1L << row;
+        // Reading first keeps rows which are already dirty from contending on the same word.
+        if((dirtyRows.get(word) & bit) == 0)
+            dirtyRows.getAndAccumulate(word, bit, (a, b) -> a | b);
+    }
+    /**
+     * Mark the rows from..to(exclusive) dirty after writing into getPixels().
+     * @param fromRow First row
+     * @param toRow Row after the last row
+     */
+    public void markRows(int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; ) {
+            int word = row >>> 6;
+            int end = Math.min(toRow, (word + 1) << 6);
+            long bits = end - row == 64 ? -1L : ((1L << (end - row)) - 1) << row;
+            if((dirtyRows.get(word) & bits) != bits)
+                dirtyRows.getAndAccumulate(word, bits, (a, b) -> a | b);
+            row = end;
+        }
+    }
+    /**
+     * Tell the window the dirty rows, so it repaints only them on the next frame, and clear them.
+     * Call it once after the writes of a frame.
+     */
+    public void commit() {
+        int runStart = -1;
+        for (int word = 0; word < dirtyRows.length(); word++) {
+            long bits = dirtyRows.getAndSet(word, 0);
+            for (int bit = 0; bit < 64; bit++) {
+                int row = (word << 6) + bit;
+                if(row >= height) break;
+                boolean dirty = (bits & (1L << bit)) != 0;
+                if(dirty && runStart < 0) {
+                    runStart = row;
+                } else if(!dirty && runStart >= 0) {
+                    changedRows(runStart, row);
+                    runStart = -1;
+                }
+            }
+        }
+        if(runStart >= 0)
+            changedRows(runStart, height);
+    }
+
+    private void changedRows(int fromRow, int toRow) {
+        if(hasChangeListeners())
+            areaChanged(new Rectangle(x, y + fromRow, width, toRow - fromRow));
+    }
+
+    /*============================== Structure ==============================*/
+    public void move(int locationX, int locationY) {
+        Rectangle old = hasChangeListeners() ? getBounds() : null;
+        x = locationX;
+        y = locationY;
+        if(old != null)
+            changed(old);
+    }
+    public int getX() {
+        return x;
+    }
+    public int getY() {
+        return y;
+    }
+    public int getWidth() {
+        return width;
+    }
+    public int getHeight() {
+        return height;
+    }
+    /**
+     * Get the image which shares the pixels.
+     * @return Image of the buffer
+     */
+    public @NotNull BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public void render(@NotNull Graphics2D g) {
+        // The window clips the draw to its dirty areas, so only the dirty rows are blitted.
+        g.drawImage(image, x, y, null);
+    }
+
+    @Override
+    public @NotNull Rectangle getBounds() {
+        return new Rectangle(x, y, width, height);
+    }
+
+    @Override
+    public String toString() {
+        return "PixelBufferStructure[x=" + x + ", y=" + y + ", width=" + width + ", height=" + height + "]";
+    }
+
+    /**
+     * Rows from..to(exclusive). It splits in half until a band is small enough.
+     */
+    private final class Bands extends RecursiveAction {
+        private final RowBand band;
+        private final int from;
+        private final int to;
+        private final int bandHeight;
+
+        Bands(RowBand band, int from, int to, int bandHeight) {
+            this.band = band;
+            this.from = from;
+            this.to = to;
+            this.bandHeight = bandHeight;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > bandHeight) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Bands(band, from, middle, bandHeight), new Bands(band, middle, to, bandHeight));
+                return;
+            }
+            band.update(pixels, width, from, to);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Many one-pixel points in one structure.
+ * It keeps the points in int arrays, and they are always filled.
+ */
+public class PointBatchStructure extends BatchStructure {
+    public PointBatchStructure() {
+        this(16);
+    }
+    /**
+     * Constructor
+     * @param capacity Initial number of points it can hold
+     */
+    public PointBatchStructure(int capacity) {
+        super(new Points(capacity), new Points(capacity));
+    }
+
+    /**
+     * Add a point.
+     * @return Index of the point
+     */
+    public int add(int x, int y) {
+        Points points = (Points) getColumns();
+        int capacity = grow(points.xs.length);
+        if(capacity != points.xs.length)
+            points.resize(capacity);
+        int index = size++;
+        set(index, x, y);
+        return index;
+    }
+    /**
+     * Set a point.
+     * @param index Index of the point
+     */
+    public void set(int index, int x, int y) {
+        checkIndex(index);
+        Points points = (Points) getColumns();
+        points.xs[index] = x;
+        points.ys[index] = y;
+        modified(index, index + 1);
+    }
+    // GETTER
+    public int getX(int index) {
+        checkIndex(index);
+        return ((Points) getColumns()).xs[index];
+    }
+    public int getY(int index) {
+        checkIndex(index);
+        return ((Points) getColumns()).ys[index];
+    }
+
+    @Override
+    public boolean isFilled() {
+        return true;
+    }
+
+    private static final class Points extends Columns {
+        private int[] xs;
+        private int[] ys;
+
+        private Points(int capacity) {
+            xs = new int[capacity];
+            ys = new int[capacity];
+        }
+
+        private void resize(int capacity) {
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+
+        @Override
+        protected void fill(@NotNull Graphics2D g) {
+            for (int i = 0; i < size; i++) {
+                g.fillRect(xs[i], ys[i], 1, 1);
+            }
+        }
+
+        @Override
+        protected void stroke(@NotNull Graphics2D g) {
+            // Points are always filled, so there is no outline.
+        }
+
+        @Override
+        protected @Nullable Rectangle computeBounds() {
+            if(size == 0)
+                return null;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                minX = Math.min(minX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxX = Math.max(maxX, xs[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+
+        @Override
+        protected void copy(@NotNull Columns other, int from, int to) {
+            Points points = (Points) other;
+            if(xs.length < points.xs.length)
+                resize(points.xs.length);
+            System.arraycopy(points.xs, from, xs, from, to - from);
+            System.arraycopy(points.ys, from, ys, from, to - from);
+        }
+    }
+}
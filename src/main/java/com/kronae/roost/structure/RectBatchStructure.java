@@ -0,0 +1,151 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Many rectangles in one structure.
+ * It keeps the rectangles in int arrays, instead of a SquareStructure per rectangle.
+ */
+public class RectBatchStructure extends BatchStructure {
+    public RectBatchStructure() {
+        this(16);
+    }
+    /**
+     * Constructor
+     * @param capacity Initial number of rectangles it can hold
+     */
+    public RectBatchStructure(int capacity) {
+        super(new Rects(capacity), new Rects(capacity));
+    }
+
+    /**
+     * Add a rectangle.
+     * @return Index of the rectangle
+     */
+    public int add(int x, int y, int width, int height) {
+        Rects rects = (Rects) getColumns();
+        int capacity = grow(rects.xs.length);
+        if(capacity != rects.xs.length)
+            rects.resize(capacity);
+        int index = size++;
+        set(index, x, y, width, height);
+        return index;
+    }
+    /**
+     * Set a rectangle.
+     * @param index Index of the rectangle
+     */
+    public void set(int index, int x, int y, int width, int height) {
+        checkIndex(index);
+        Rects rects = (Rects) getColumns();
+        rects.xs[index] = x;
+        rects.ys[index] = y;
+        rects.widths[index] = width;
+        rects.heights[index] = height;
+        modified(index, index + 1);
+    }
+    /**
+     * Move a rectangle.
+     * @param index Index of the rectangle
+     */
+    public void move(int index, int x, int y) {
+        checkIndex(index);
+        Rects rects = (Rects) getColumns();
+        rects.xs[index] = x;
+        rects.ys[index] = y;
+        modified(index, index + 1);
+    }
+    /**
+     * Move every rectangle by the same amount.
+     */
+    public void translate(int dx, int dy) {
+        Rects rects = (Rects) getColumns();
+        for (int i = 0; i < size; i++) {
+            rects.xs[i] += dx;
+            rects.ys[i] += dy;
+        }
+        modified(0, size);
+    }
+    // GETTER
+    public int getX(int index) {
+        checkIndex(index);
+        return ((Rects) getColumns()).xs[index];
+    }
+    public int getY(int index) {
+        checkIndex(index);
+        return ((Rects) getColumns()).ys[index];
+    }
+    public int getWidth(int index) {
+        checkIndex(index);
+        return ((Rects) getColumns()).widths[index];
+    }
+    public int getHeight(int index) {
+        checkIndex(index);
+        return ((Rects) getColumns()).heights[index];
+    }
+
+    private static final class Rects extends Columns {
+        private int[] xs;
+        private int[] ys;
+        private int[] widths;
+        private int[] heights;
+
+        private Rects(int capacity) {
+            xs = new int[capacity];
+            ys = new int[capacity];
+            widths = new int[capacity];
+            heights = new int[capacity];
+        }
+
+        private void resize(int capacity) {
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+
+        @Override
+        protected void fill(@NotNull Graphics2D g) {
+            for (int i = 0; i < size; i++) {
+                g.fillRect(xs[i], ys[i], widths[i], heights[i]);
+            }
+        }
+
+        @Override
+        protected void stroke(@NotNull Graphics2D g) {
+            for (int i = 0; i < size; i++) {
+                g.drawRect(xs[i], ys[i], widths[i], heights[i]);
+            }
+        }
+
+        @Override
+        protected @Nullable Rectangle computeBounds() {
+            if(size == 0)
+                return null;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                minX = Math.min(minX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxX = Math.max(maxX, xs[i] + widths[i]);
+                maxY = Math.max(maxY, ys[i] + heights[i]);
+            }
+            // Outlines cover one more pixel to the right and the bottom.
+            return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+
+        @Override
+        protected void copy(@NotNull Columns other, int from, int to) {
+            Rects rects = (Rects) other;
+            if(xs.length < rects.xs.length)
+                resize(rects.xs.length);
+            System.arraycopy(rects.xs, from, xs, from, to - from);
+            System.arraycopy(rects.ys, from, ys, from, to - from);
+            System.arraycopy(rects.widths, from, widths, from, to - from);
+            System.arraycopy(rects.heights, from, heights, from, to - from);
+        }
+    }
+}
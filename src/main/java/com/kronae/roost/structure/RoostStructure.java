@@ -1,4 +1,36 @@
 package com.kronae.roost.structure;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
 public interface RoostStructure {
+    /**
+     * Draw the structure.
+     * It is used when no StructureRenderer is registered for the class.
+     * @param g Graphics to draw into
+     */
+    default void render(@NotNull Graphics2D g) {
+    }
+    /**
+     * Get the area the structure draws on the window.
+     * @return Bounds of the structure. null if unknown.
+     */
+    default @Nullable Rectangle getBounds() {
+        return null;
+    }
+    /**
+     * Add a listener which is called when the structure is changed.
+     * Immutable structures never call it.
+     * @param listener Listener
+     */
+    default void addChangeListener(@NotNull StructureChangeListener listener) {
+    }
+    /**
+     * Remove the change listener.
+     * @param listener Listener
+     */
+    default void removeChangeListener(@NotNull StructureChangeListener listener) {
+    }
 }
@@ -0,0 +1,295 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Uniform grid of structures keyed by their bounds.
+ * Query results are in the order the structures were added, so they can be drawn as is.
+ * Structures without bounds are kept aside and are returned by every area query.
+ * <p>
+ * It takes no lock. Queries may run at the same time as each other, but add, remove and update
+ * must not run at the same time as anything else. Scene only changes it while it publishes a frame.
+ */
+public class SpatialGrid {
+    /**
+     * Structures covering more cells than this are kept aside, like the ones without bounds.
+     */
+    private static final int MAX_CELLS = 256;
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(entry -> entry.order);
+
+    private static final class Entry {
+        private final @NotNull RoostStructure structure;
+        private final long order;
+        private Rectangle bounds;
+        private int minX, minY, maxX, maxY;
+        private boolean aside;
+
+        private Entry(@NotNull RoostStructure structure, long order) {
+            this.structure = structure;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Open addressing map from the key of a cell to its entries, so looking up a cell never boxes the key.
+     * A slot is empty when its value is null. Removing shifts the following slots back, so no slot is a tombstone.
+     */
+    private static final class Cells {
+        private long[] keys = new long[64];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private ArrayList<Entry>[] values = new ArrayList[64];
+        private int size;
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+        }
+        private @Nullable ArrayList<Entry> get(long key) {
+            for (int i = slot(key); ; i = (i + 1) & (keys.length - 1)) {
+                ArrayList<Entry> value = values[i];
+                if(value == null || keys[i] == key)
+                    return value;
+            }
+        }
+        private @NotNull ArrayList<Entry> getOrCreate(long key) {
+            int i = slot(key);
+            for (; values[i] != null; i = (i + 1) & (keys.length - 1)) {
+                if(keys[i] == key)
+                    return values[i];
+            }
+            ArrayList<Entry> value = new ArrayList<>(4);
+            keys[i] = key;
+            values[i] = value;
+            // Keep the table at most half full.
+            if(++size * 2 > keys.length)
+                resize();
+            return value;
+        }
+        private void remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if(keys[i] == key)
+                    break;
+            }
+            if(values[i] == null)
+                return;
+            values[i] = null;
+            size--;
+            // Shift back the following slots which would not be found past the hole.
+            for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                if(((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    values[j] = null;
+                    i = j;
+                }
+            }
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void resize() {
+            long[] oldKeys = keys;
+            ArrayList<Entry>[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new ArrayList[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if(oldValues[i] == null)
+                    continue;
+                int j = slot(oldKeys[i]);
+                while(values[j] != null)
+                    j = (j + 1) & (keys.length - 1);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private final int cellSize;
+    private final Cells cells = new Cells();
+    private final IdentityHashMap<RoostStructure, Entry> entries = new IdentityHashMap<>();
+    private final ArrayList<Entry> aside = new ArrayList<>();
+    private long nextOrder;
+
+    public SpatialGrid() {
+        this(128);
+    }
+    /**
+     * Constructor
+     * @param cellSize Width and height of a cell in pixels
+     */
+    public SpatialGrid(int cellSize) {
+        if(cellSize <= 0) throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        this.cellSize = cellSize;
+    }
+
+    /*============================== Add / Remove / Update ==============================*/
+    /**
+     * Add the structure. It is put after every structure already added.
+     * @param structure Roost structure
+     */
+    public void add(@NotNull RoostStructure structure) {
+        if(entries.containsKey(structure))
+            return;
+        Entry entry = new Entry(structure, nextOrder++);
+        entries.put(structure, entry);
+        insert(entry);
+    }
+    /**
+     * Remove the structure.
+     * @param structure Roost structure
+     * @return Whether the structure was in the grid
+     */
+    public boolean remove(@NotNull RoostStructure structure) {
+        Entry entry = entries.remove(structure);
+        if(entry == null)
+            return false;
+        erase(entry);
+        return true;
+    }
+    /**
+     * Read the bounds of the structure again, after it is moved or resized.
+     * @param structure Roost structure
+     */
+    public void update(@NotNull RoostStructure structure) {
+        Entry entry = entries.get(structure);
+        if(entry == null)
+            return;
+        erase(entry);
+        insert(entry);
+    }
+    /**
+     * Get the number of structures.
+     * @return Number of structures
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /*============================== Query ==============================*/
+    /**
+     * Find the structures intersecting the area, in the order they were added.
+     * @param area Area to find
+     * @param withUnbounded Whether the structures without bounds are included
+     * @param out List to add the structures into
+     */
+    public void query(@NotNull Rectangle area, boolean withUnbounded, @NotNull List<RoostStructure> out) {
+        ArrayList<Entry> found = new ArrayList<>();
+        for (Entry entry : aside) {
+            if(entry.bounds == null ? withUnbounded : entry.bounds.intersects(area))
+                found.add(entry);
+        }
+        int minX = cell(area.x), minY = cell(area.y);
+        int maxX = cell(area.x + Math.max(area.width, 1) - 1), maxY = cell(area.y + Math.max(area.height, 1) - 1);
+        if((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size) {
+            // The area has more cells than the grid has occupied ones, so walk the occupied ones instead.
+            for (int i = 0; i < cells.keys.length; i++) {
+                ArrayList<Entry> cell = cells.values[i];
+                if(cell == null)
+                    continue;
+                int cx = (int) (cells.keys[i] >> 32), cy = (int) cells.keys[i];
+                if(cx >= minX && cx <= maxX && cy >= minY && cy <= maxY)
+                    collect(cell, cx, cy, minX, minY, area, found);
+            }
+        } else {
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cy = minY; cy <= maxY; cy++) {
+                    ArrayList<Entry> cell = cells.get(key(cx, cy));
+                    if(cell != null)
+                        collect(cell, cx, cy, minX, minY, area, found);
+                }
+            }
+        }
+        drain(found, out);
+    }
+    /**
+     * Find the structures containing the point, in the order they were added.
+     * Structures without bounds are never found.
+     * @param x X of the point
+     * @param y Y of the point
+     * @param out List to add the structures into
+     */
+    public void query(int x, int y, @NotNull List<RoostStructure> out) {
+        ArrayList<Entry> found = new ArrayList<>();
+        for (Entry entry : aside) {
+            if(entry.bounds != null && entry.bounds.contains(x, y))
+                found.add(entry);
+        }
+        ArrayList<Entry> cell = cells.get(key(cell(x), cell(y)));
+        if(cell != null) {
+            for (Entry entry : cell) {
+                if(entry.bounds.contains(x, y))
+                    found.add(entry);
+            }
+        }
+        drain(found, out);
+    }
+
+    /*============================== PRIVATE ==============================*/
+    private void insert(Entry entry) {
+        Rectangle bounds = entry.structure.getBounds();
+        entry.bounds = bounds;
+        if(bounds == null) {
+            entry.aside = true;
+            aside.add(entry);
+            return;
+        }
+        entry.minX = cell(bounds.x);
+        entry.minY = cell(bounds.y);
+        entry.maxX = cell(bounds.x + Math.max(bounds.width, 1) - 1);
+        entry.maxY = cell(bounds.y + Math.max(bounds.height, 1) - 1);
+        if((long) (entry.maxX - entry.minX + 1) * (entry.maxY - entry.minY + 1) > MAX_CELLS) {
+            entry.aside = true;
+            aside.add(entry);
+            return;
+        }
+        entry.aside = false;
+        for (int cx = entry.minX; cx <= entry.maxX; cx++) {
+            for (int cy = entry.minY; cy <= entry.maxY; cy++) {
+                cells.getOrCreate(key(cx, cy)).add(entry);
+            }
+        }
+    }
+    private void erase(Entry entry) {
+        if(entry.aside) {
+            aside.remove(entry);
+            return;
+        }
+        for (int cx = entry.minX; cx <= entry.maxX; cx++) {
+            for (int cy = entry.minY; cy <= entry.maxY; cy++) {
+                long key = key(cx, cy);
+                ArrayList<Entry> cell = cells.get(key);
+                if(cell == null)
+                    continue;
+                cell.remove(entry);
+                if(cell.isEmpty())
+                    cells.remove(key);
+            }
+        }
+    }
+    private static void collect(ArrayList<Entry> cell, int cx, int cy, int minX, int minY, Rectangle area, ArrayList<Entry> found) {
+        for (Entry entry : cell) {
+            // An entry in several cells is only taken from the first of its cells in the area.
+            if(cx == Math.max(entry.minX, minX) && cy == Math.max(entry.minY, minY) && entry.bounds.intersects(area))
+                found.add(entry);
+        }
+    }
+    private static void drain(ArrayList<Entry> found, List<RoostStructure> out) {
+        found.sort(ORDER);
+        for (Entry entry : found) {
+            out.add(entry.structure);
+        }
+    }
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -1,33 +1,63 @@
 package com.kronae.roost.structure;
 
-public class SquareStructure implements RoostStructure {
-    private int lx;
-    private int ly;
-    private int sx;
-    private int sy;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+
+public class SquareStructure extends MutableStructure {
+    // x and y(and width and height) are packed into one long, so the renderer never sees half of a move.
+    private volatile long location;
+    private volatile long size;
     public SquareStructure(int locationX, int locationY, int sizeX, int sizeY) {
         move(locationX, locationY);
         resize(sizeX, sizeY);
     }
     public void move(int locationX, int locationY) {
-        lx = locationX;
-        ly = locationY;
+        Rectangle old = hasChangeListeners() ? getBounds() : null;
+        location = pack(locationX, locationY);
+        if(old != null)
+            changed(old);
     }
     public void resize(int sizeX, int sizeY) {
-        sx = sizeX;
-        sy = sizeY;
+        Rectangle old = hasChangeListeners() ? getBounds() : null;
+        size = pack(sizeX, sizeY);
+        if(old != null)
+            changed(old);
     }
     // GETTER
     public int getLocationX() {
-        return lx;
+        return high(location);
     }
     public int getLocationY() {
-        return ly;
+        return low(location);
     }
     public int getSizeX() {
-        return sx;
+        return high(size);
     }
     public int getSizeY() {
-        return sy;
+        return low(size);
+    }
+
+    @Override
+    public void render(@NotNull Graphics2D g) {
+        long location = this.location, size = this.size;
+        g.drawRect(high(location), low(location), high(size), low(size));
+    }
+
+    @Override
+    public @NotNull Rectangle getBounds() {
+        long location = this.location, size = this.size;
+        // drawRect covers one more pixel to the right and the bottom.
+        return new Rectangle(high(location), low(location), high(size) + 1, low(size) + 1);
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+    private static int high(long packed) {
+        return (int) (packed >> 32);
+    }
+    private static int low(long packed) {
+        return (int) packed;
     }
 }
@@ -0,0 +1,24 @@
+package com.kronae.roost.structure;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+
+@FunctionalInterface
+public interface StructureChangeListener {
+    /**
+     * Called when the structure is changed.
+     * @param structure Changed structure
+     * @param oldBounds Bounds before the change. null if unknown.
+     */
+    void structureChanged(@NotNull RoostStructure structure, @Nullable Rectangle oldBounds);
+    /**
+     * Called when only an area of the structure is changed. Its bounds are the same.
+     * @param structure Changed structure
+     * @param area Changed area
+     */
+    default void areaChanged(@NotNull RoostStructure structure, @NotNull Rectangle area) {
+        structureChanged(structure, null);
+    }
+}
@@ -1,13 +1,45 @@
 package com.kronae.roost.structure;
 
-public class TextStructure implements RoostStructure {
+import com.kronae.roost.image.ImageCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+
+public class TextStructure extends MutableStructure {
+    /**
+     * Text laid out once for a font and render context.
+     */
+    private record Layout(@NotNull Font font, @NotNull FontRenderContext context, @Nullable TextLayout layout, @NotNull Rectangle pixelBounds) {
+    }
+    /**
+     * Text rasterized once into an image, for a layout and a color.
+     */
+    private record Sprite(@NotNull Layout layout, @NotNull Color color, @NotNull BufferedImage image) {
+    }
+
     private final int x;
     private final int y;
     private final String content;
+    private final @Nullable Font font;
+    private volatile boolean spriteMode;
+    private volatile @Nullable Layout layout;
+    private volatile @Nullable Sprite sprite;
     public TextStructure(int x, int y, String content) {
+        this(x, y, content, null);
+    }
+    /**
+     * Constructor
+     * @param font Font of the text. null uses the font of the window.
+     */
+    public TextStructure(int x, int y, String content, @Nullable Font font) {
         this.x = x;
         this.y = y;
         this.content = content;
+        this.font = font;
     }
     public String getContent() {
         return content;
@@ -18,6 +50,91 @@ public class TextStructure implements RoostStructure {
     public int getY() {
         return y;
     }
+    public @Nullable Font getFont() {
+        return font;
+    }
+    /**
+     * Set sprite mode of the text.
+     * If you turns on, the text is rasterized into an image once, and the image is drawn on every frame.
+     * It is the fastest for static text, but the text is drawn again if the color or the render hints change.
+     * @param spriteMode spriteMode of the text
+     */
+    public void setSpriteMode(boolean spriteMode) {
+        this.spriteMode = spriteMode;
+        if(!spriteMode)
+            sprite = null;
+    }
+    public boolean isSpriteMode() {
+        return spriteMode;
+    }
+
+    @Override
+    public void render(@NotNull Graphics2D g) {
+        Layout layout = layout(g);
+        if(layout.layout() == null)
+            return;
+
+        if(spriteMode && g.getPaint() instanceof Color color) {
+            Sprite sprite = this.sprite;
+            if(sprite == null || sprite.layout() != layout || !sprite.color().equals(color))
+                this.sprite = sprite = rasterize(g, layout, color);
+            g.drawImage(sprite.image(), x + layout.pixelBounds().x, y + layout.pixelBounds().y, null);
+            return;
+        }
+        layout.layout().draw(g, x, y);
+    }
+
+    /**
+     * Get the area the text draws. It is unknown until the text is drawn once.
+     * @return Bounds of the text. null if unknown.
+     */
+    @Override
+    public @Nullable Rectangle getBounds() {
+        Layout layout = this.layout;
+        if(layout == null)
+            return null;
+        Rectangle bounds = new Rectangle(layout.pixelBounds());
+        bounds.translate(x, y);
+        return bounds;
+    }
+
+    /*============================== PRIVATE ==============================*/
+    private Layout layout(Graphics2D g) {
+        Font font = this.font != null ? this.font : g.getFont();
+        FontRenderContext context = g.getFontRenderContext();
+        Layout previous = this.layout;
+        if(previous != null && previous.font().equals(font) && previous.context().equals(context))
+            return previous;
+
+        Rectangle old = getBounds();
+        Layout layout;
+        if(content == null || content.isEmpty()) {
+            layout = new Layout(font, context, null, new Rectangle());
+        } else {
+            TextLayout textLayout = new TextLayout(content, font, context);
+            Rectangle pixelBounds = textLayout.getPixelBounds(context, 0, 0);
+            pixelBounds.grow(1, 1); // Antialiasing can touch one more pixel.
+            layout = new Layout(font, context, textLayout, pixelBounds);
+        }
+        this.layout = layout;
+        // The bounds are known(or changed) now, so the window has to index them.
+        if(previous == null || !previous.pixelBounds().equals(layout.pixelBounds()))
+            changed(old);
+        return layout;
+    }
+    private static Sprite rasterize(Graphics2D g, Layout layout, Color color) {
+        Rectangle bounds = layout.pixelBounds();
+        BufferedImage image = new BufferedImage(Math.max(bounds.width, 1), Math.max(bounds.height, 1), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D sg = image.createGraphics();
+        try {
+            sg.setRenderingHints(g.getRenderingHints());
+            sg.setColor(color);
+            layout.layout().draw(sg, -bounds.x, -bounds.y);
+        } finally {
+            sg.dispose();
+        }
+        return new Sprite(layout, color, ImageCache.toCompatible(image));
+    }
 
     @Override
     public String toString() {
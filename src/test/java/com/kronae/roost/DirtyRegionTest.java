@@ -0,0 +1,103 @@
+package com.kronae.roost;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirtyRegionTest {
+    /**
+     * A region after its first drain, which is always full.
+     */
+    private static DirtyRegion drained() {
+        DirtyRegion region = new DirtyRegion();
+        assertTrue(region.drain(new ArrayList<>(), 100, 100));
+        return region;
+    }
+
+    @Test
+    void startsFull() {
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertTrue(new DirtyRegion().drain(out, 100, 100));
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    void mergesOverlappingAreas() {
+        DirtyRegion region = drained();
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.add(new Rectangle(50, 50, 10, 10));
+        // Overlaps both, so all three become one.
+        region.add(new Rectangle(5, 5, 50, 50));
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertFalse(region.drain(out, 1000, 1000));
+        assertEquals(List.of(new Rectangle(0, 0, 60, 60)), out);
+    }
+
+    @Test
+    void keepsSeparateAreas() {
+        DirtyRegion region = drained();
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.add(new Rectangle(20, 20, 10, 10));
+        region.add(new Rectangle(0, 0, 0, 0));
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertFalse(region.drain(out, 100, 100));
+        assertEquals(2, out.size());
+        assertTrue(out.contains(new Rectangle(0, 0, 10, 10)));
+        assertTrue(out.contains(new Rectangle(20, 20, 10, 10)));
+        // Drained areas are gone.
+        out.clear();
+        assertFalse(region.drain(out, 100, 100));
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    void clipsToTheWindow() {
+        DirtyRegion region = drained();
+        region.add(new Rectangle(90, 90, 50, 50));
+        region.add(new Rectangle(200, 200, 10, 10));
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertFalse(region.drain(out, 100, 100));
+        assertEquals(List.of(new Rectangle(90, 90, 10, 10)), out);
+    }
+
+    @Test
+    void becomesFullAboveTheThreshold() {
+        DirtyRegion region = drained();
+        region.setThreshold(0.25F);
+        // Exactly a quarter is still partial.
+        region.add(new Rectangle(0, 0, 50, 50));
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertFalse(region.drain(out, 100, 100));
+        assertEquals(1, out.size());
+
+        out.clear();
+        region.add(new Rectangle(0, 0, 51, 50));
+        assertTrue(region.drain(out, 100, 100));
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    void nullMeansFull() {
+        DirtyRegion region = drained();
+        region.add(new Rectangle(0, 0, 10, 10));
+        region.add(null);
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertTrue(region.drain(out, 100, 100));
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    void unitesTooManyAreas() {
+        DirtyRegion region = drained();
+        for (int i = 0; i < 17; i++) {
+            region.add(new Rectangle(i * 10, 0, 5, 5));
+        }
+        ArrayList<Rectangle> out = new ArrayList<>();
+        assertFalse(region.drain(out, 1000, 1000));
+        assertEquals(List.of(new Rectangle(0, 0, 165, 5)), out);
+    }
+}
@@ -0,0 +1,37 @@
+package com.kronae.roost;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoostRuntimeTest {
+    @Test
+    void dropsReportsOverTheBoundBeforeTheyWait() throws InterruptedException {
+        RoostRuntime runtime = new RoostRuntime(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reported = new AtomicInteger();
+        Runnable report = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reported.incrementAndGet();
+        };
+        for (int i = 0; i < 1000; i++) {
+            runtime.reportError(report);
+        }
+        // 256 wait, and at most one more is taken while the first one runs.
+        assertTrue(runtime.getDroppedErrorReports() >= 1000 - 257, "dropped " + runtime.getDroppedErrorReports());
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while(reported.get() + runtime.getDroppedErrorReports() < 1000 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1000, reported.get() + runtime.getDroppedErrorReports());
+    }
+}
@@ -0,0 +1,140 @@
+package com.kronae.roost;
+
+import com.kronae.roost.custom.RoostScript;
+import com.kronae.roost.profile.FrameProfiler;
+import com.kronae.roost.status.CloseType;
+import com.kronae.roost.status.WindowStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptSchedulerTest {
+    private final List<String> log = new ArrayList<>();
+    private ForkJoinPool pool;
+
+    /**
+     * Script which logs its updates.
+     */
+    private abstract class LogScript implements RoostScript {
+        private final boolean independent;
+        private final List<Class<? extends RoostScript>> dependencies;
+
+        @SafeVarargs
+        LogScript(boolean independent, Class<? extends RoostScript>... dependencies) {
+            this.independent = independent;
+            this.dependencies = List.of(dependencies);
+        }
+
+        @Override
+        public void update(WindowStatus status) {
+            synchronized (log) {
+                log.add(getClass().getSimpleName());
+            }
+        }
+        @Override
+        public boolean isIndependent() {
+            return independent;
+        }
+        @Override
+        public Collection<Class<? extends RoostScript>> getDependencies() {
+            return dependencies;
+        }
+        @Override
+        public void open(Window2D window) {
+        }
+        @Override
+        public boolean closeQueue() {
+            return true;
+        }
+        @Override
+        public void close(CloseType type) {
+        }
+    }
+
+    private class Input extends LogScript {
+        Input() {
+            super(true);
+        }
+    }
+    private class Physics extends LogScript {
+        Physics() {
+            super(true, Input.class);
+        }
+    }
+    private class Camera extends LogScript {
+        Camera() {
+            super(false, Physics.class);
+        }
+    }
+    private class Sound extends LogScript {
+        Sound() {
+            super(true);
+        }
+    }
+    private class Ping extends LogScript {
+        Ping() {
+            super(false, Pong.class);
+        }
+    }
+    private class Pong extends LogScript {
+        Pong() {
+            super(false, Ping.class);
+        }
+    }
+
+    @BeforeEach
+    void createPool() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private ScriptScheduler parallel(RoostScript... scripts) {
+        ScriptScheduler scheduler = new ScriptScheduler(new FrameProfiler());
+        scheduler.setParallel(true);
+        scheduler.setPool(pool);
+        for (RoostScript script : scripts) {
+            scheduler.add(script);
+        }
+        return scheduler;
+    }
+
+    @Test
+    void runsDependenciesInEarlierWaves() {
+        // Added in the reverse order of the dependencies.
+        ScriptScheduler scheduler = parallel(new Camera(), new Physics(), new Sound(), new Input());
+        for (int frame = 0; frame < 20; frame++) {
+            log.clear();
+            scheduler.update(WindowStatus.OPEN);
+            assertEquals(4, log.size());
+            assertTrue(log.indexOf("Input") < log.indexOf("Physics"), log.toString());
+            assertTrue(log.indexOf("Physics") < log.indexOf("Camera"), log.toString());
+        }
+    }
+
+    @Test
+    void runsInAddOrderWhenNotParallel() {
+        ScriptScheduler scheduler = parallel(new Camera(), new Physics(), new Input());
+        scheduler.setParallel(false);
+        scheduler.update(WindowStatus.OPEN);
+        assertEquals(List.of("Camera", "Physics", "Input"), log);
+    }
+
+    @Test
+    void rejectsCycles() {
+        ScriptScheduler scheduler = parallel(new Input(), new Ping(), new Pong());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> scheduler.update(WindowStatus.OPEN));
+        assertTrue(e.getMessage().contains("depend on each other"), e.getMessage());
+        assertEquals(List.of(), log);
+    }
+}
@@ -0,0 +1,75 @@
+package com.kronae.roost;
+
+import com.kronae.roost.custom.RoostScript;
+import com.kronae.roost.status.CloseType;
+import com.kronae.roost.status.WindowStatus;
+import org.junit.jupiter.api.Test;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowCoreTest {
+    /**
+     * Script which remembers which open() was called.
+     */
+    private static class OpenScript implements RoostScript {
+        private Window2D window2D;
+        private Window window;
+
+        @Override
+        public void open(Window2D window) {
+            this.window2D = window;
+        }
+        @Override
+        public void open(Window window) {
+            this.window = window;
+        }
+        @Override
+        public void update(WindowStatus status) {
+        }
+        @Override
+        public boolean closeQueue() {
+            return true;
+        }
+        @Override
+        public void close(CloseType type) {
+        }
+    }
+
+    /**
+     * Window2D needs a screen to be constructed, so it is made without its constructor.
+     * Only its class matters to openScripts().
+     */
+    private static Window2D window2D() throws Exception {
+        Field field = Unsafe.class.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        return (Window2D) ((Unsafe) field.get(null)).allocateInstance(Window2D.class);
+    }
+
+    @Test
+    void opensWindow2DScriptsWithWindow2D() throws Exception {
+        WindowCore core = new WindowCore();
+        OpenScript script = new OpenScript();
+        core.scripts.add(script);
+        Window2D window = window2D();
+        core.openScripts(window);
+        assertSame(window, script.window2D);
+        assertNull(script.window);
+    }
+
+    @Test
+    void opensOtherWindowsWithWindow() {
+        OffscreenWindow window = new OffscreenWindow(8, 8);
+        OpenScript script = new OpenScript();
+        window.addScript(script);
+        window.open();
+        try {
+            assertSame(window, script.window);
+            assertNull(script.window2D);
+        } finally {
+            window.close(false);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.kronae.roost.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageCacheTest {
+    private static final int THREADS = 8;
+
+    /**
+     * Call get() from many threads at once. The loader waits until every thread has asked for the key.
+     */
+    private static List<Future<BufferedImage>> getAtOnce(ImageCache cache, ImageCache.Loader loader, CountDownLatch release) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            ArrayList<Future<BufferedImage>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> cache.get("key", loader)));
+            }
+            // Every thread has either missed or joined the load in flight.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while(cache.getHits() + cache.getMisses() < THREADS && System.nanoTime() < deadline)
+                Thread.sleep(1);
+            release.countDown();
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void decodesConcurrentMissOnce() throws Exception {
+        ImageCache cache = new ImageCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ImageCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        };
+        List<Future<BufferedImage>> results = getAtOnce(cache, loader, release);
+        BufferedImage first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<BufferedImage> result : results) {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+        assertSame(first, cache.get("key", loader));
+    }
+
+    @Test
+    void sharesFailureAndRetries() throws Exception {
+        ImageCache cache = new ImageCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ImageCache.Loader failing = () -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            throw new IOException("broken");
+        };
+        for (Future<BufferedImage> result : getAtOnce(cache, failing, release)) {
+            Exception e = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, cache.size());
+        // A failed load is not cached, so the next get() loads again.
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB);
+        assertSame(image, cache.get("key", () -> image));
+    }
+}
@@ -0,0 +1,73 @@
+package com.kronae.roost.input;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputQueueTest {
+    private static List<String> drain(InputQueue queue) {
+        ArrayList<String> events = new ArrayList<>();
+        queue.drain((type, keyCode, keyChar, actionKey) -> events.add(type + ":" + keyCode + ":" + keyChar));
+        return events;
+    }
+
+    @Test
+    void drainsInOrder() {
+        InputQueue queue = new InputQueue(8);
+        queue.offer(InputQueue.KEY_PRESS, 65, 'a', false);
+        queue.offer(InputQueue.KEY_TYPE, 0, 'a', false);
+        queue.offer(InputQueue.KEY_RELEASE, 65, 'a', false);
+        assertEquals(List.of("0:65:a", "2:0:a", "1:65:a"), drain(queue));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void dropsWhenFull() {
+        InputQueue queue = new InputQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(InputQueue.KEY_TYPE, i, 'x', false));
+        }
+        assertFalse(queue.offer(InputQueue.KEY_TYPE, 4, 'x', false));
+        assertEquals(1, queue.getDropped());
+        assertEquals(List.of("2:0:x", "2:1:x", "2:2:x", "2:3:x"), drain(queue));
+        // The drained slots are free again.
+        assertTrue(queue.offer(InputQueue.KEY_TYPE, 5, 'x', false));
+        assertEquals(List.of("2:5:x"), drain(queue));
+    }
+
+    @Test
+    void keepsOrderAcrossThreads() throws InterruptedException {
+        // A small ring wraps many times, and yielding lets both threads run on a single processor.
+        InputQueue queue = new InputQueue(8);
+        int count = 5_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while(!queue.offer(InputQueue.KEY_TYPE, i, 'x', false))
+                    Thread.yield();
+            }
+        });
+        producer.start();
+        int[] next = {0};
+        while(next[0] < count) {
+            if(queue.drain((type, keyCode, keyChar, actionKey) -> assertEquals(next[0]++, keyCode)) == 0)
+                Thread.yield();
+        }
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void coalescesKeyRepeats() {
+        InputQueue queue = new InputQueue(8);
+        queue.offer(InputQueue.KEY_PRESS, 65, 'a', false);
+        queue.offer(InputQueue.KEY_PRESS, 65, 'a', false);
+        queue.offer(InputQueue.KEY_PRESS, 65, 'a', false);
+        assertEquals(List.of("0:65:a"), drain(queue));
+        // The next drain delivers the first repeat again.
+        queue.offer(InputQueue.KEY_PRESS, 65, 'a', false);
+        assertEquals(List.of("0:65:a"), drain(queue));
+    }
+}
@@ -0,0 +1,79 @@
+package com.kronae.roost.input;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputStateTest {
+    @Test
+    void edgesLastOneUpdate() {
+        InputState input = new InputState();
+        input.keyPressed(KeyEvent.VK_A);
+        assertTrue(input.isDown(KeyEvent.VK_A));
+        // Edges become visible only when the update begins.
+        assertFalse(input.wasPressed(KeyEvent.VK_A));
+
+        input.beginUpdate();
+        assertTrue(input.wasPressed(KeyEvent.VK_A));
+        assertFalse(input.wasReleased(KeyEvent.VK_A));
+
+        input.beginUpdate();
+        assertFalse(input.wasPressed(KeyEvent.VK_A));
+        assertTrue(input.isDown(KeyEvent.VK_A));
+
+        input.keyReleased(KeyEvent.VK_A);
+        input.beginUpdate();
+        assertTrue(input.wasReleased(KeyEvent.VK_A));
+        assertFalse(input.isDown(KeyEvent.VK_A));
+
+        input.beginUpdate();
+        assertFalse(input.wasReleased(KeyEvent.VK_A));
+    }
+
+    @Test
+    void pressAndReleaseInOneUpdate() {
+        InputState input = new InputState();
+        input.keyPressed(KeyEvent.VK_SPACE);
+        input.keyReleased(KeyEvent.VK_SPACE);
+        input.beginUpdate();
+        assertTrue(input.wasPressed(KeyEvent.VK_SPACE));
+        assertTrue(input.wasReleased(KeyEvent.VK_SPACE));
+        assertFalse(input.isDown(KeyEvent.VK_SPACE));
+    }
+
+    @Test
+    void repeatIsNotAPress() {
+        InputState input = new InputState();
+        input.keyPressed(KeyEvent.VK_W);
+        input.beginUpdate();
+        input.keyPressed(KeyEvent.VK_W);
+        input.beginUpdate();
+        assertFalse(input.wasPressed(KeyEvent.VK_W));
+    }
+
+    @Test
+    void releaseAllReleasesEveryKey() {
+        InputState input = new InputState();
+        input.keyPressed(KeyEvent.VK_A);
+        input.keyPressed(KeyEvent.VK_F12);
+        input.beginUpdate();
+        input.releaseAll();
+        input.beginUpdate();
+        assertTrue(input.wasReleased(KeyEvent.VK_A));
+        assertTrue(input.wasReleased(KeyEvent.VK_F12));
+        assertFalse(input.isDown(KeyEvent.VK_A));
+        assertFalse(input.isDown(KeyEvent.VK_F12));
+    }
+
+    @Test
+    void ignoresInvalidKeys() {
+        InputState input = new InputState();
+        input.keyPressed(-1);
+        input.keyPressed(1 << 16);
+        input.beginUpdate();
+        assertFalse(input.isDown(-1));
+        assertFalse(input.wasPressed(1 << 16));
+    }
+}
@@ -0,0 +1,86 @@
+package com.kronae.roost.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlyphAtlasTest {
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+
+    private static BufferedImage draw(GlyphAtlas atlas, Color color, String text) {
+        BufferedImage image = new BufferedImage(200, 30, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            atlas.draw(g, color, text.toCharArray(), text.length(), 5, 20, false);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    @Test
+    void sharesOneAtlasBetweenColors() {
+        assertSame(GlyphAtlas.get(FONT, true), GlyphAtlas.get(FONT, true));
+        assertNotSame(GlyphAtlas.get(FONT, true), GlyphAtlas.get(FONT, false));
+    }
+
+    @Test
+    void tintsTheSameMask() {
+        GlyphAtlas atlas = GlyphAtlas.get(FONT, true);
+        BufferedImage red = draw(atlas, Color.RED, "Roost 123");
+        BufferedImage blue = draw(atlas, Color.BLUE, "Roost 123");
+        int covered = 0;
+        for (int y = 0; y < red.getHeight(); y++) {
+            for (int x = 0; x < red.getWidth(); x++) {
+                int r = red.getRGB(x, y), b = blue.getRGB(x, y);
+                // Same coverage, and only the color differs.
+                assertEquals(r >>> 24, b >>> 24);
+                if(r >>> 24 == 0)
+                    continue;
+                covered++;
+                assertEquals(0xFF0000, r & 0xFFFFFF);
+                assertEquals(0x0000FF, b & 0xFFFFFF);
+            }
+        }
+        assertTrue(covered > 0);
+    }
+
+    @Test
+    void measuresAndPlacesNewCharacters() {
+        GlyphAtlas atlas = GlyphAtlas.get(FONT, false);
+        char[] text = "aé中".toCharArray();
+        assertTrue(atlas.width(text, text.length, false) > 0);
+        assertEquals(3 * atlas.width(new char[] { 'a' }, 1, true), atlas.width(text, 3, true));
+    }
+
+    @Test
+    void drawsFromManyThreads() throws Exception {
+        GlyphAtlas atlas = GlyphAtlas.get(FONT, true);
+        BufferedImage expected = draw(atlas, Color.BLACK, "tile text");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<BufferedImage>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> draw(atlas, Color.BLACK, "tile text")));
+            }
+            for (Future<BufferedImage> result : results) {
+                BufferedImage image = result.get();
+                for (int y = 0; y < expected.getHeight(); y++) {
+                    for (int x = 0; x < expected.getWidth(); x++) {
+                        assertEquals(expected.getRGB(x, y), image.getRGB(x, y));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
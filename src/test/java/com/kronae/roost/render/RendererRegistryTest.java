@@ -0,0 +1,59 @@
+package com.kronae.roost.render;
+
+import com.kronae.roost.structure.RoostStructure;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RendererRegistryTest {
+    private interface Shape extends RoostStructure {
+    }
+    private interface Polygon extends Shape {
+    }
+    private static class Triangle implements Polygon {
+    }
+    private static class Marker implements RoostStructure {
+    }
+
+    private static final StructureRenderer<RoostStructure> A = (g, structure) -> {};
+    private static final StructureRenderer<RoostStructure> B = (g, structure) -> {};
+
+    @Test
+    void findsRendererOfSuperInterface() {
+        RendererRegistry registry = new RendererRegistry();
+        registry.register(Shape.class, A);
+        assertSame(A, registry.get(Triangle.class));
+    }
+
+    @Test
+    void prefersNearerType() {
+        RendererRegistry registry = new RendererRegistry();
+        registry.register(Shape.class, A);
+        registry.register(Polygon.class, B);
+        assertSame(B, registry.get(Triangle.class));
+    }
+
+    @Test
+    void childDoesNotChangeParent() {
+        RendererRegistry parent = new RendererRegistry();
+        RendererRegistry first = new RendererRegistry(parent);
+        RendererRegistry second = new RendererRegistry(parent);
+        first.register(Marker.class, A);
+        assertSame(A, first.get(Marker.class));
+        assertNotSame(A, second.get(Marker.class));
+        assertNotSame(A, parent.get(Marker.class));
+    }
+
+    @Test
+    void childSeesLaterParentChanges() {
+        RendererRegistry parent = new RendererRegistry();
+        RendererRegistry child = new RendererRegistry(parent);
+        StructureRenderer<RoostStructure> before = child.get(Triangle.class);
+        assertNotSame(B, before);
+        parent.register(Triangle.class, B);
+        assertSame(B, child.get(Triangle.class));
+        // A renderer of the child wins over the parent's.
+        child.register(Shape.class, A);
+        assertSame(A, child.get(Triangle.class));
+    }
+}
@@ -0,0 +1,111 @@
+package com.kronae.roost.render;
+
+import com.kronae.roost.structure.SquareStructure;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneTest {
+    /**
+     * Draw the last publish without publishing, and get the color at the point.
+     */
+    private static int drawnAt(Scene scene, int x, int y) {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setClip(0, 0, 64, 64);
+            g.setColor(Color.BLACK);
+            scene.drawPublished(g);
+        } finally {
+            g.dispose();
+        }
+        return image.getRGB(x, y);
+    }
+
+    @Test
+    void addIsSeenAfterPublish() {
+        Scene scene = new Scene();
+        SquareStructure square = new SquareStructure(10, 10, 8, 8);
+        scene.add(square);
+        assertEquals(1, scene.size());
+        assertTrue(scene.getStructures().isEmpty());
+        assertTrue(scene.find(10, 10).isEmpty());
+        assertEquals(0, drawnAt(scene, 10, 10));
+
+        scene.publish();
+        assertEquals(List.of(square), scene.getStructures());
+        assertEquals(List.of(square), scene.find(10, 10));
+        assertEquals(Color.BLACK.getRGB(), drawnAt(scene, 10, 10));
+    }
+
+    @Test
+    void removeIsSeenAfterPublish() {
+        Scene scene = new Scene();
+        SquareStructure square = new SquareStructure(10, 10, 8, 8);
+        scene.add(square);
+        scene.publish();
+        assertTrue(scene.remove(square));
+        assertEquals(0, scene.size());
+        assertEquals(List.of(square), scene.getStructures());
+        assertEquals(List.of(square), scene.find(10, 10));
+        assertEquals(Color.BLACK.getRGB(), drawnAt(scene, 10, 10));
+
+        scene.publish();
+        assertTrue(scene.getStructures().isEmpty());
+        assertTrue(scene.find(10, 10).isEmpty());
+        assertEquals(0, drawnAt(scene, 10, 10));
+    }
+
+    @Test
+    void changeIsFoundAfterPublish() {
+        Scene scene = new Scene();
+        SquareStructure square = new SquareStructure(10, 10, 8, 8);
+        scene.add(square);
+        scene.publish();
+        for (int i = 0; i < 100; i++) {
+            square.move(10 + i % 7, 10);
+        }
+        square.move(40, 40);
+        assertEquals(List.of(square), scene.find(10, 10));
+        assertTrue(scene.find(44, 44).isEmpty());
+        // Not in the grid at its new place, so it is culled.
+        assertEquals(0, drawnAt(scene, 44, 44));
+
+        scene.publish();
+        assertTrue(scene.find(10, 10).isEmpty());
+        assertEquals(List.of(square), scene.find(44, 44));
+        assertEquals(Color.BLACK.getRGB(), drawnAt(scene, 40, 40));
+    }
+
+    @Test
+    void addedAgainIsDrawnLast() {
+        Scene scene = new Scene();
+        SquareStructure first = new SquareStructure(0, 0, 8, 8);
+        SquareStructure second = new SquareStructure(0, 0, 8, 8);
+        scene.add(first);
+        scene.add(second);
+        scene.publish();
+        scene.remove(first);
+        scene.add(first);
+        assertEquals(List.of(first, second), scene.getStructures());
+
+        scene.publish();
+        assertEquals(List.of(second, first), scene.getStructures());
+        assertEquals(List.of(second, first), scene.find(0, 0));
+    }
+
+    @Test
+    void publishesFromAnotherThread() throws InterruptedException {
+        Scene scene = new Scene();
+        SquareStructure square = new SquareStructure(10, 10, 8, 8);
+        scene.add(square);
+        Thread thread = new Thread(scene::publish);
+        thread.start();
+        thread.join();
+        assertEquals(List.of(square), scene.find(10, 10));
+    }
+}
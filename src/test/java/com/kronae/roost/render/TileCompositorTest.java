@@ -0,0 +1,111 @@
+package com.kronae.roost.render;
+
+import com.kronae.roost.structure.AtlasTextStructure;
+import com.kronae.roost.structure.LineBatchStructure;
+import com.kronae.roost.structure.PixelBufferStructure;
+import com.kronae.roost.structure.RectBatchStructure;
+import com.kronae.roost.structure.SquareStructure;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileCompositorTest {
+    private static final int WIDTH = 517;
+    private static final int HEIGHT = 389;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Structures of every kind, many of them across the tile edges.
+     */
+    private static Scene scene() {
+        Random random = new Random(7);
+        Scene scene = new Scene();
+        for (int i = 0; i < 200; i++) {
+            scene.add(new SquareStructure(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(120), random.nextInt(120)));
+        }
+        RectBatchStructure rects = new RectBatchStructure();
+        rects.setFilled(true);
+        for (int i = 0; i < 300; i++) {
+            rects.add(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(40), random.nextInt(40));
+        }
+        rects.commit();
+        scene.add(rects);
+        LineBatchStructure lines = new LineBatchStructure();
+        for (int i = 0; i < 100; i++) {
+            lines.add(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(WIDTH), random.nextInt(HEIGHT));
+        }
+        lines.commit();
+        scene.add(lines);
+        PixelBufferStructure pixels = new PixelBufferStructure(60, 50, 150, 120);
+        for (int y = 0; y < 120; y++) {
+            for (int x = 0; x < 150; x++) {
+                pixels.setPixel(x, y, 0x80000000 | (x * 1700 + y * 31));
+            }
+        }
+        pixels.commit();
+        scene.add(pixels);
+        AtlasTextStructure text = new AtlasTextStructure(100, 130, new Font(Font.SANS_SERIF, Font.BOLD, 40), Color.BLUE, false);
+        text.setText("Tiles 0123456789");
+        scene.add(text);
+        return scene;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Test
+    void matchesSingleThreadedDraw() {
+        Scene scene = scene();
+        BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = expected.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            g.setColor(Color.BLACK);
+            scene.draw(g);
+        } finally {
+            g.dispose();
+        }
+
+        for (int tileSize : new int[] { 37, 64, 128 }) {
+            BufferedImage tiled = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            new TileCompositor(tileSize, pool).draw(scene, tiled, Color.WHITE);
+            assertArrayEquals(pixels(expected), pixels(tiled), "tile size " + tileSize);
+        }
+    }
+
+    @Test
+    void drawsUnsupportedImageOnOneThread() {
+        Scene scene = scene();
+        BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        assertFalse(TileCompositor.supports(image));
+        new TileCompositor(WIDTH, pool).draw(scene, expected, Color.WHITE);
+        new TileCompositor(32, pool).draw(scene, image, Color.WHITE);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(expected.getRGB(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+}
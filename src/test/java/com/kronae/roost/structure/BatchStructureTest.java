@@ -0,0 +1,88 @@
+package com.kronae.roost.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchStructureTest {
+    private static BufferedImage draw(BatchStructure batch) {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.BLACK);
+            batch.render(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static void assertDrawn(BufferedImage image, int x, int y, boolean drawn) {
+        assertEquals(drawn ? Color.BLACK.getRGB() : 0, image.getRGB(x, y), x + "," + y);
+    }
+
+    @Test
+    void drawsOnlyCommittedPrimitives() {
+        PointBatchStructure points = new PointBatchStructure(2);
+        points.add(1, 1);
+        assertNull(points.getBounds());
+        assertDrawn(draw(points), 1, 1, false);
+
+        points.commit();
+        points.add(2, 2);
+        points.set(0, 3, 3);
+        BufferedImage image = draw(points);
+        assertDrawn(image, 1, 1, true);
+        assertDrawn(image, 2, 2, false);
+        assertDrawn(image, 3, 3, false);
+        assertEquals(new Rectangle(1, 1, 1, 1), points.getBounds());
+        // Getters see the updates before the commit.
+        assertEquals(3, points.getX(0));
+    }
+
+    @Test
+    void keepsBothColumnsUpToDate() {
+        PointBatchStructure points = new PointBatchStructure(1);
+        for (int i = 0; i < 40; i++) {
+            points.add(i, i);
+        }
+        // Every commit swaps the columns, so both have to hold every update.
+        for (int commit = 0; commit < 6; commit++) {
+            points.set(commit, 63, commit);
+            points.commit();
+            BufferedImage image = draw(points);
+            for (int i = 0; i < 40; i++) {
+                assertDrawn(image, i <= commit ? 63 : i, i, true);
+            }
+        }
+        points.clear();
+        points.add(5, 9);
+        points.commit();
+        BufferedImage image = draw(points);
+        assertDrawn(image, 5, 9, true);
+        assertDrawn(image, 10, 10, false);
+        assertEquals(new Rectangle(5, 9, 1, 1), points.getBounds());
+    }
+
+    @Test
+    void setFilledNotifiesListeners() {
+        RectBatchStructure rects = new RectBatchStructure();
+        rects.add(2, 2, 10, 10);
+        rects.commit();
+        List<Rectangle> changes = new ArrayList<>();
+        rects.addChangeListener((structure, oldBounds) -> changes.add(oldBounds));
+        assertDrawn(draw(rects), 6, 6, false);
+
+        rects.setFilled(true);
+        assertEquals(List.of(new Rectangle(2, 2, 11, 11)), changes);
+        assertDrawn(draw(rects), 6, 6, true);
+        // Nothing changes, so nobody is told.
+        rects.setFilled(true);
+        assertEquals(1, changes.size());
+    }
+}
@@ -0,0 +1,23 @@
+package com.kronae.roost.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageStructureTest {
+    @Test
+    void placeholderChangesBounds() {
+        ImageStructure structure = new ImageStructure(10, 20, -1, -1, (BufferedImage) null);
+        List<Rectangle> olds = new ArrayList<>();
+        structure.addChangeListener((changed, oldBounds) -> olds.add(oldBounds));
+        assertEquals(new Rectangle(10, 20, 1, 1), structure.getBounds());
+        structure.setPlaceholder(new BufferedImage(30, 40, BufferedImage.TYPE_INT_ARGB));
+        assertEquals(List.of(new Rectangle(10, 20, 1, 1)), olds);
+        assertEquals(new Rectangle(10, 20, 30, 40), structure.getBounds());
+    }
+}
@@ -0,0 +1,120 @@
+package com.kronae.roost.structure;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialGridTest {
+    private static List<RoostStructure> query(SpatialGrid grid, Rectangle area) {
+        ArrayList<RoostStructure> found = new ArrayList<>();
+        grid.query(area, false, found);
+        return found;
+    }
+
+    @Test
+    void findsStructureInManyCellsOnce() {
+        SpatialGrid grid = new SpatialGrid(16);
+        // Covers 4 x 4 cells.
+        SquareStructure wide = new SquareStructure(5, 5, 50, 50);
+        grid.add(wide);
+        assertEquals(List.of(wide), query(grid, new Rectangle(0, 0, 100, 100)));
+        // The area starts in a later cell of the structure.
+        assertEquals(List.of(wide), query(grid, new Rectangle(40, 40, 100, 100)));
+    }
+
+    @Test
+    void keepsAddOrder() {
+        SpatialGrid grid = new SpatialGrid(16);
+        SquareStructure first = new SquareStructure(30, 30, 40, 40);
+        SquareStructure second = new SquareStructure(0, 0, 10, 10);
+        SquareStructure third = new SquareStructure(20, 0, 60, 10);
+        grid.add(first);
+        grid.add(second);
+        grid.add(third);
+        assertEquals(List.of(first, second, third), query(grid, new Rectangle(0, 0, 100, 100)));
+    }
+
+    @Test
+    void usesExactBounds() {
+        SpatialGrid grid = new SpatialGrid(16);
+        SquareStructure square = new SquareStructure(0, 0, 4, 4);
+        grid.add(square);
+        // Same cell, but outside the bounds.
+        assertEquals(List.of(), query(grid, new Rectangle(10, 10, 2, 2)));
+        ArrayList<RoostStructure> found = new ArrayList<>();
+        grid.query(10, 10, found);
+        assertEquals(List.of(), found);
+        grid.query(1, 1, found);
+        assertEquals(List.of(square), found);
+    }
+
+    @Test
+    void followsUpdatesAndRemoves() {
+        SpatialGrid grid = new SpatialGrid(16);
+        SquareStructure square = new SquareStructure(0, 0, 4, 4);
+        grid.add(square);
+        square.move(200, 200);
+        grid.update(square);
+        assertEquals(List.of(), query(grid, new Rectangle(0, 0, 16, 16)));
+        assertEquals(List.of(square), query(grid, new Rectangle(200, 200, 1, 1)));
+        assertTrue(grid.remove(square));
+        assertEquals(0, grid.size());
+        assertEquals(List.of(), query(grid, new Rectangle(200, 200, 1, 1)));
+    }
+
+    @Test
+    void keepsHugeStructuresAside() {
+        SpatialGrid grid = new SpatialGrid(1);
+        SquareStructure huge = new SquareStructure(0, 0, 1000, 1000);
+        grid.add(huge);
+        assertEquals(List.of(huge), query(grid, new Rectangle(500, 500, 10, 10)));
+        assertEquals(List.of(), query(grid, new Rectangle(2000, 2000, 10, 10)));
+    }
+
+    @Test
+    void findsInSparseGrid() {
+        SpatialGrid grid = new SpatialGrid(16);
+        SquareStructure near = new SquareStructure(10, 10, 40, 40);
+        SquareStructure far = new SquareStructure(90_000, 90_000, 5, 5);
+        grid.add(near);
+        grid.add(far);
+        // Far more cells than the grid holds, so the occupied cells are walked.
+        assertEquals(List.of(near, far), query(grid, new Rectangle(0, 0, 100_000, 100_000)));
+        assertEquals(List.of(far), query(grid, new Rectangle(50_000, 50_000, 50_000, 50_000)));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(42);
+        SpatialGrid grid = new SpatialGrid(8);
+        ArrayList<SquareStructure> added = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            int action = random.nextInt(4);
+            if(action == 0 || added.isEmpty()) {
+                SquareStructure square = new SquareStructure(random.nextInt(400) - 200, random.nextInt(400) - 200, random.nextInt(40), random.nextInt(40));
+                grid.add(square);
+                added.add(square);
+            } else if(action == 1) {
+                assertTrue(grid.remove(added.remove(random.nextInt(added.size()))));
+            } else if(action == 2) {
+                SquareStructure square = added.get(random.nextInt(added.size()));
+                square.move(random.nextInt(400) - 200, random.nextInt(400) - 200);
+                grid.update(square);
+            } else {
+                Rectangle area = new Rectangle(random.nextInt(500) - 250, random.nextInt(500) - 250, random.nextInt(300), random.nextInt(300));
+                ArrayList<RoostStructure> expected = new ArrayList<>();
+                for (SquareStructure square : added) {
+                    if(square.getBounds().intersects(area))
+                        expected.add(square);
+                }
+                assertEquals(expected, query(grid, area));
+            }
+        }
+        assertEquals(added.size(), grid.size());
+    }
+}
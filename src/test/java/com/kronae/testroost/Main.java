@@ -6,6 +6,5 @@ public class Main {
     public static TestWindow asdfTestWindow;
     public static void main(String[] args) throws AlreadyOpenException {
         asdfTestWindow = new TestWindow();
-        asdfTestWindow.run();
     }
 }